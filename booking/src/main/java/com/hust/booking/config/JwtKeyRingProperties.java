@@ -0,0 +1,56 @@
+package com.hust.booking.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * app.jwt.key-ring: additional JWT keys selected by their kid header.
+ * The legacy app.jwt.secret is always available under the kid "default".
+ */
+@ConfigurationProperties(prefix = "app.jwt.key-ring")
+public class JwtKeyRingProperties {
+
+    // kid used to sign new tokens; every other key is verification-only
+    private String activeKid = "default";
+
+    private List<Key> keys = new ArrayList<>();
+
+    public String getActiveKid() { return activeKid; }
+    public void setActiveKid(String activeKid) { this.activeKid = activeKid; }
+
+    public List<Key> getKeys() { return keys; }
+    public void setKeys(List<Key> keys) { this.keys = keys; }
+
+    public static class Key {
+
+        private String kid;
+
+        // HMAC, RSA or EdDSA
+        private String type = "HMAC";
+
+        // HMAC only: raw shared secret
+        private String secret;
+
+        // RSA/EdDSA: Base64 DER, X.509 (public) and PKCS#8 (private).
+        // A key without a private part can only verify, e.g. another node's key.
+        private String publicKey;
+        private String privateKey;
+
+        public String getKid() { return kid; }
+        public void setKid(String kid) { this.kid = kid; }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public String getSecret() { return secret; }
+        public void setSecret(String secret) { this.secret = secret; }
+
+        public String getPublicKey() { return publicKey; }
+        public void setPublicKey(String publicKey) { this.publicKey = publicKey; }
+
+        public String getPrivateKey() { return privateKey; }
+        public void setPrivateKey(String privateKey) { this.privateKey = privateKey; }
+    }
+}
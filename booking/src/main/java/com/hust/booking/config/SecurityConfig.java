@@ -1,9 +1,14 @@
 package com.hust.booking.config;
 
+import com.hust.booking.security.BoundedPasswordEncoder;
 import com.hust.booking.security.JwtAuthenticationEntryPoint;
 import com.hust.booking.security.JwtAuthenticationFilter;
 import com.hust.booking.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -27,6 +32,7 @@ import java.util.Arrays;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@EnableConfigurationProperties(JwtKeyRingProperties.class)
 public class SecurityConfig {
 
     @Autowired
@@ -35,14 +41,29 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 means one hashing thread per available core
+    @Value("${app.security.password-hashing.pool-size:0}")
+    private int hashingPoolSize;
+
+    @Value("${app.security.password-hashing.queue-capacity:100}")
+    private int hashingQueueCapacity;
+
+    @Value("${app.security.password-hashing.timeout-ms:10000}")
+    private long hashingTimeoutMs;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
     }
 
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int poolSize = hashingPoolSize > 0 ? hashingPoolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize,
+                hashingQueueCapacity, hashingTimeoutMs, meterRegistry);
     }
 
     @Bean
@@ -66,7 +87,9 @@ public class SecurityConfig {
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth ->
-                        auth.requestMatchers("/api/auth/**").permitAll()
+                        // Async dispatches (streamed exports) were already authorized on the original request
+                        auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers("/api/auth/**").permitAll()
                                 .requestMatchers("/api/public/**").permitAll()
                                 .anyRequest().authenticated()
                 );
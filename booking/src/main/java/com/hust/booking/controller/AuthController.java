@@ -1,8 +1,9 @@
 package com.hust.booking.controller;
 
 import com.hust.booking.dto.*;
-import com.hust.booking.entity.User;
+import com.hust.booking.security.AuthenticatedUser;
 import com.hust.booking.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,9 +19,12 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    // getRemoteAddr() is the real client only when server.forward-headers-strategy is set behind a proxy
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        AuthResponse authResponse = authService.authenticateUser(loginRequest);
+    public ResponseEntity<AuthResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                                         HttpServletRequest request) {
+        AuthResponse authResponse = authService.authenticateUser(
+                loginRequest, request.getRemoteAddr(), request.getHeader("User-Agent"));
         return ResponseEntity.ok(authResponse);
     }
 
@@ -37,11 +41,11 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(@RequestBody(required = false) RefreshTokenRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof User) {
-            User user = (User) authentication.getPrincipal();
-            authService.logout(user.getId());
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+            authService.logout(user, request != null ? request.getRefreshToken() : null);
         }
         return ResponseEntity.ok().build();
     }
@@ -1,10 +1,16 @@
 package com.hust.booking.controller;
 
 import com.hust.booking.dto.*;
-import com.hust.booking.entity.User;
+import com.hust.booking.enums.MemberRole;
+import com.hust.booking.enums.MemberStatus;
+import com.hust.booking.security.AuthenticatedUser;
 import com.hust.booking.service.GroupService;
+import com.hust.booking.service.IdempotentRequests;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,22 +19,34 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/groups")
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class GroupController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final long PREVIEW_MAX_AGE_SECONDS = 30;
+
+    // Retries with the same key get the original response instead of re-running the write
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private IdempotentRequests idempotentRequests;
+
     /**
      * Create a new group
      */
     @PostMapping
     public ResponseEntity<GroupResponse> createGroup(@Valid @RequestBody CreateGroupRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         GroupResponse group = groupService.createGroup(request, currentUser.getId());
         return ResponseEntity.ok(group);
@@ -38,11 +56,15 @@ public class GroupController {
      * Join group by code
      */
     @PostMapping("/join")
-    public ResponseEntity<GroupMemberResponse> joinGroup(@Valid @RequestBody JoinGroupRequest request) {
+    public ResponseEntity<GroupMemberResponse> joinGroup(
+            @Valid @RequestBody JoinGroupRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
-        GroupMemberResponse membership = groupService.joinGroupByCode(request, currentUser.getId());
+        GroupMemberResponse membership = idempotentRequests.execute("join", currentUser.getId(), idempotencyKey,
+                request, () -> groupService.joinGroupByCode(request, currentUser.getId()));
         return ResponseEntity.ok(membership);
     }
 
@@ -52,18 +74,25 @@ public class GroupController {
     @GetMapping("/code/{code}")
     public ResponseEntity<GroupResponse> getGroupByCode(@PathVariable String code) {
         GroupResponse group = groupService.getGroupByCode(code);
-        return ResponseEntity.ok(group);
+        // Conditional GETs with a matching If-None-Match are answered 304 by Spring from this ETag
+        return ResponseEntity.ok()
+                .eTag(previewETag(group))
+                .cacheControl(CacheControl.maxAge(PREVIEW_MAX_AGE_SECONDS, TimeUnit.SECONDS).cachePublic())
+                .body(group);
     }
 
     /**
      * Get current user's groups
      */
     @GetMapping("/my-groups")
-    public ResponseEntity<List<GroupResponse>> getMyGroups() {
+    public ResponseEntity<List<GroupResponse>> getMyGroups(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
-        List<GroupResponse> groups = groupService.getUserGroups(currentUser.getId());
+        List<GroupResponse> groups = groupService.getUserGroups(currentUser.getId(), toPageable(page, size));
         return ResponseEntity.ok(groups);
     }
 
@@ -71,11 +100,14 @@ public class GroupController {
      * Get groups owned by current user
      */
     @GetMapping("/owned")
-    public ResponseEntity<List<GroupResponse>> getOwnedGroups() {
+    public ResponseEntity<List<GroupResponse>> getOwnedGroups(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
-        List<GroupResponse> groups = groupService.getGroupsOwnedByUser(currentUser.getId());
+        List<GroupResponse> groups = groupService.getGroupsOwnedByUser(currentUser.getId(), toPageable(page, size));
         return ResponseEntity.ok(groups);
     }
 
@@ -85,21 +117,27 @@ public class GroupController {
     @GetMapping("/{groupId}")
     public ResponseEntity<GroupResponse> getGroupById(@PathVariable Long groupId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         GroupResponse group = groupService.getGroupById(groupId, currentUser.getId());
         return ResponseEntity.ok(group);
     }
 
     /**
-     * Get group members
+     * Get group members, keyset-paginated (pass nextCursor back as "after")
      */
     @GetMapping("/{groupId}/members")
-    public ResponseEntity<List<GroupMemberResponse>> getGroupMembers(@PathVariable Long groupId) {
+    public ResponseEntity<CursorPage<GroupMemberResponse>> getGroupMembers(
+            @PathVariable Long groupId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) MemberStatus status) {
+
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
-        List<GroupMemberResponse> members = groupService.getGroupMembers(groupId, currentUser.getId());
+        CursorPage<GroupMemberResponse> members = groupService.getGroupMembers(groupId, currentUser.getId(),
+                status, after, limit != null ? Math.min(Math.max(limit, 1), MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE);
         return ResponseEntity.ok(members);
     }
 
@@ -109,15 +147,47 @@ public class GroupController {
     @PostMapping("/{groupId}/members")
     public ResponseEntity<GroupMemberResponse> addMember(
             @PathVariable Long groupId,
-            @Valid @RequestBody AddMemberRequest request) {
+            @Valid @RequestBody AddMemberRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
-        GroupMemberResponse member = groupService.addMemberToGroup(groupId, request, currentUser.getId());
+        GroupMemberResponse member = idempotentRequests.execute("add-member:" + groupId, currentUser.getId(),
+                idempotencyKey, request, () -> groupService.addMemberToGroup(groupId, request, currentUser.getId()));
         return ResponseEntity.ok(member);
     }
 
+    /**
+     * Add many members to a group by email in one request
+     */
+    @PostMapping("/{groupId}/members/bulk")
+    public ResponseEntity<List<BulkItemResult>> addMembers(
+            @PathVariable Long groupId,
+            @Valid @RequestBody BulkAddMembersRequest request) {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+
+        List<BulkItemResult> results = groupService.addMembersToGroup(groupId, request, currentUser.getId());
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Accept/reject many members at once (owners only)
+     */
+    @PutMapping("/{groupId}/members/status")
+    public ResponseEntity<List<BulkItemResult>> updateMemberStatuses(
+            @PathVariable Long groupId,
+            @Valid @RequestBody BulkUpdateMemberStatusRequest request) {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+
+        List<BulkItemResult> results = groupService.updateMemberStatuses(groupId, request, currentUser.getId());
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Update member status (accept/reject pending members)
      */
@@ -128,7 +198,7 @@ public class GroupController {
             @Valid @RequestBody UpdateMemberStatusRequest request) {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         groupService.updateMemberStatus(groupId, memberId, request, currentUser.getId());
 
@@ -146,7 +216,7 @@ public class GroupController {
             @PathVariable Long userId) {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         groupService.removeUserFromGroup(groupId, userId, currentUser.getId());
 
@@ -161,7 +231,7 @@ public class GroupController {
     @PostMapping("/{groupId}/leave")
     public ResponseEntity<Map<String, String>> leaveGroup(@PathVariable Long groupId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         groupService.removeUserFromGroup(groupId, currentUser.getId(), currentUser.getId());
 
@@ -176,7 +246,7 @@ public class GroupController {
     @DeleteMapping("/{groupId}")
     public ResponseEntity<Map<String, String>> deleteGroup(@PathVariable Long groupId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         groupService.deleteGroup(groupId, currentUser.getId());
 
@@ -189,11 +259,31 @@ public class GroupController {
      * Get current user's group memberships
      */
     @GetMapping("/memberships")
-    public ResponseEntity<List<GroupMemberResponse>> getMyMemberships() {
+    public ResponseEntity<List<GroupMemberResponse>> getMyMemberships(
+            @RequestParam(required = false) MemberStatus status,
+            @RequestParam(required = false) MemberRole role,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
-        List<GroupMemberResponse> memberships = groupService.getUserMemberships(currentUser.getId());
+        List<GroupMemberResponse> memberships = groupService.getUserMemberships(currentUser, status, role,
+                toPageable(page, size));
         return ResponseEntity.ok(memberships);
     }
-}
\ No newline at end of file
+
+    private String previewETag(GroupResponse group) {
+        return "\"" + Integer.toHexString(Objects.hash(group.getId(), group.getName(),
+                group.getMemberCount(), group.getUpdatedAt())) + "\"";
+    }
+
+    // Both parameters are optional; without them the full list is returned as before
+    private Pageable toPageable(Integer page, Integer size) {
+        if (page == null && size == null) {
+            return Pageable.unpaged();
+        }
+        return PageRequest.of(page != null ? Math.max(page, 0) : 0,
+                size != null ? Math.min(Math.max(size, 1), MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE);
+    }
+}
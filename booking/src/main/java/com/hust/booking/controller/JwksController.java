@@ -0,0 +1,31 @@
+package com.hust.booking.controller;
+
+import com.hust.booking.security.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class JwksController {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    /**
+     * Public verification keys so other services can check our tokens locally
+     */
+    @GetMapping("/api/public/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("keys", keyRing.getPublicJwks());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(response);
+    }
+}
@@ -1,21 +1,27 @@
 package com.hust.booking.controller;
 
 import com.hust.booking.dto.ChangePasswordRequest;
+import com.hust.booking.dto.CursorPage;
 import com.hust.booking.dto.UpdateProfileRequest;
 import com.hust.booking.dto.UserProfileResponse;
 import com.hust.booking.dto.UserStatsResponse;
 import com.hust.booking.entity.User;
+import com.hust.booking.security.AuthenticatedUser;
+import com.hust.booking.service.RefreshTokenService;
+import com.hust.booking.service.UserExportService;
 import com.hust.booking.service.UserService;
 import com.hust.booking.util.SecurityContextHelper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -26,9 +32,17 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserExportService userExportService;
+
     /**
      * Get current user's profile
      * This endpoint demonstrates JWT authentication working
@@ -36,7 +50,7 @@ public class UserController {
     @GetMapping("/me")
     public ResponseEntity<UserProfileResponse> getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         UserProfileResponse userProfile = userService.getUserById(currentUser.getId());
         return ResponseEntity.ok(userProfile);
@@ -48,7 +62,7 @@ public class UserController {
     @GetMapping("/{id}")
     public ResponseEntity<UserProfileResponse> getUserById(@PathVariable Long id) {
         Authentication authentication = SecurityContextHelper.getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         // Users can only access their own profile unless they're admin
         if (!currentUser.getId().equals(id)) {
@@ -60,26 +74,47 @@ public class UserController {
     }
 
     /**
-     * Get all users with pagination
+     * User directory, paged by cursor: pass the previous page's nextCursor as "after".
+     * "page" instead jumps straight to an offset page (no total count is computed).
      * Protected endpoint - requires authentication
      */
     @GetMapping
-    public ResponseEntity<Page<UserProfileResponse>> getAllUsers(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<CursorPage<UserProfileResponse>> getAllUsers(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy) {
 
-        Page<UserProfileResponse> users = userService.getAllUsersWithPagination(page, size, sortBy);
+        CursorPage<UserProfileResponse> users = userService.getUserDirectory(sortBy, after,
+                page != null ? Math.max(page, 0) : null, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
         return ResponseEntity.ok(users);
     }
 
     /**
-     * Search users by name
+     * Export all users as NDJSON (default) or CSV, streamed row by row
+     * Protected endpoint
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        UserExportService.Format exportFormat = UserExportService.Format.parse(format);
+        StreamingResponseBody body = userExportService.startExport(exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Search users by name, email or phone, best matches first
      * Protected endpoint
      */
     @GetMapping("/search")
-    public ResponseEntity<List<UserProfileResponse>> searchUsers(@RequestParam String name) {
-        List<UserProfileResponse> users = userService.searchUsersByName(name);
+    public ResponseEntity<List<UserProfileResponse>> searchUsers(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<UserProfileResponse> users = userService.searchUsersByName(name,
+                Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
         return ResponseEntity.ok(users);
     }
 
@@ -101,7 +136,7 @@ public class UserController {
             @Valid @RequestBody UpdateProfileRequest request) {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         UserProfileResponse updatedProfile = userService.updateUserProfile(currentUser.getId(), request);
         return ResponseEntity.ok(updatedProfile);
@@ -115,7 +150,7 @@ public class UserController {
             @Valid @RequestBody ChangePasswordRequest request) {
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         userService.changePassword(currentUser.getId(), request);
 
@@ -130,7 +165,7 @@ public class UserController {
     @DeleteMapping("/me")
     public ResponseEntity<Map<String, String>> deleteCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         userService.deleteUser(currentUser.getId());
 
@@ -146,7 +181,7 @@ public class UserController {
     @GetMapping("/auth-status")
     public ResponseEntity<Map<String, Object>> getAuthStatus() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
 
         Map<String, Object> authInfo = new HashMap<>();
         authInfo.put("authenticated", true);
@@ -169,7 +204,8 @@ public class UserController {
     @GetMapping("/me/account-details")
     public ResponseEntity<Map<String, Object>> getAccountDetails() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        User currentUser = userService.getCurrentUserEntity(principal.getId());
 
         Map<String, Object> accountDetails = new HashMap<>();
         accountDetails.put("id", currentUser.getId());
@@ -180,8 +216,9 @@ public class UserController {
         accountDetails.put("updatedAt", currentUser.getUpdatedAt());
         accountDetails.put("lastLogin", java.time.LocalDateTime.now()); // You can track this
         accountDetails.put("accountStatus", "ACTIVE");
-        accountDetails.put("hasRefreshToken", currentUser.getRefreshToken() != null);
-        accountDetails.put("refreshTokenExpiry", currentUser.getRefreshTokenExpiresAt());
+        long activeSessions = refreshTokenService.countActiveSessions(currentUser.getId());
+        accountDetails.put("hasRefreshToken", activeSessions > 0);
+        accountDetails.put("activeSessions", activeSessions);
 
         return ResponseEntity.ok(accountDetails);
     }
@@ -0,0 +1,26 @@
+package com.hust.booking.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkAddMembersRequest {
+
+    @NotEmpty(message = "At least one email is required")
+    @Size(max = 500, message = "At most 500 emails per request")
+    private List<@NotBlank(message = "Email is required") @Email(message = "Email should be valid") String> emails;
+
+    // Constructors
+    public BulkAddMembersRequest() {}
+
+    public BulkAddMembersRequest(List<String> emails) {
+        this.emails = emails;
+    }
+
+    // Getters and Setters
+    public List<String> getEmails() { return emails; }
+    public void setEmails(List<String> emails) { this.emails = emails; }
+}
@@ -0,0 +1,32 @@
+package com.hust.booking.dto;
+
+/**
+ * Outcome for one entry of a bulk request. {@code key} echoes the email or member id sent.
+ */
+public class BulkItemResult {
+
+    public enum Outcome { ADDED, UPDATED, UNCHANGED, ALREADY_MEMBER, USER_NOT_FOUND, MEMBER_NOT_FOUND }
+
+    private String key;
+    private Outcome outcome;
+    private Long memberId;
+
+    // Constructors
+    public BulkItemResult() {}
+
+    public BulkItemResult(String key, Outcome outcome, Long memberId) {
+        this.key = key;
+        this.outcome = outcome;
+        this.memberId = memberId;
+    }
+
+    // Getters and Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public Outcome getOutcome() { return outcome; }
+    public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+
+    public Long getMemberId() { return memberId; }
+    public void setMemberId(Long memberId) { this.memberId = memberId; }
+}
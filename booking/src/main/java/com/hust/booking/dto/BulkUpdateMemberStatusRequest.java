@@ -0,0 +1,33 @@
+package com.hust.booking.dto;
+
+import com.hust.booking.enums.MemberStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkUpdateMemberStatusRequest {
+
+    @NotEmpty(message = "At least one member id is required")
+    @Size(max = 500, message = "At most 500 members per request")
+    private List<@NotNull Long> memberIds;
+
+    @NotNull(message = "Status is required")
+    private MemberStatus status;
+
+    // Constructors
+    public BulkUpdateMemberStatusRequest() {}
+
+    public BulkUpdateMemberStatusRequest(List<Long> memberIds, MemberStatus status) {
+        this.memberIds = memberIds;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public List<Long> getMemberIds() { return memberIds; }
+    public void setMemberIds(List<Long> memberIds) { this.memberIds = memberIds; }
+
+    public MemberStatus getStatus() { return status; }
+    public void setStatus(MemberStatus status) { this.status = status; }
+}
@@ -0,0 +1,29 @@
+package com.hust.booking.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    // Constructors
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -41,6 +41,22 @@ public class GroupMemberResponse {
         }
     }
 
+    // Used by the JPQL constructor projections in GroupMemberRepository
+    public GroupMemberResponse(Long id, Long userId, String userEmail, String userFullName, Long groupId,
+                               String groupName, MemberStatus status, MemberRole role,
+                               LocalDateTime joinedAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.userFullName = userFullName;
+        this.groupId = groupId;
+        this.groupName = groupName;
+        this.status = status;
+        this.role = role;
+        this.joinedAt = joinedAt;
+        this.updatedAt = updatedAt;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
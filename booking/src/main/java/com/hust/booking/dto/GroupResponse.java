@@ -28,6 +28,17 @@ public class GroupResponse {
         this.memberCount = memberCount;
     }
 
+    // Used by the JPQL constructor projections in GroupRepository
+    public GroupResponse(Long id, String code, String name, LocalDateTime createdAt,
+                         LocalDateTime updatedAt, Long memberCount) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.memberCount = memberCount;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -25,6 +25,18 @@ public class UserProfileResponse {
         this.enabled = user.isEnabled();
     }
 
+    // Used by JPQL constructor projections
+    public UserProfileResponse(Long id, String email, String phone, String fullName,
+                               LocalDateTime createdAt, LocalDateTime updatedAt, boolean enabled) {
+        this.id = id;
+        this.email = email;
+        this.phone = phone;
+        this.fullName = fullName;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.enabled = enabled;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -1,20 +1,28 @@
 package com.hust.booking.dto;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public class UserStatsResponse {
 
     private Long totalUsers;
+    // Newest users in the stats window; a bounded sample, not all of them
     private List<UserProfileResponse> recentUsers;
+    private Long recentRegistrations;
+    private Map<LocalDate, Long> registrationsPerDay;
     private LocalDateTime generatedAt;
 
     // Constructors
     public UserStatsResponse() {}
 
-    public UserStatsResponse(Long totalUsers, List<UserProfileResponse> recentUsers) {
+    public UserStatsResponse(Long totalUsers, List<UserProfileResponse> recentUsers,
+                             Long recentRegistrations, Map<LocalDate, Long> registrationsPerDay) {
         this.totalUsers = totalUsers;
         this.recentUsers = recentUsers;
+        this.recentRegistrations = recentRegistrations;
+        this.registrationsPerDay = registrationsPerDay;
         this.generatedAt = LocalDateTime.now();
     }
 
@@ -25,6 +33,12 @@ public class UserStatsResponse {
     public List<UserProfileResponse> getRecentUsers() { return recentUsers; }
     public void setRecentUsers(List<UserProfileResponse> recentUsers) { this.recentUsers = recentUsers; }
 
+    public Long getRecentRegistrations() { return recentRegistrations; }
+    public void setRecentRegistrations(Long recentRegistrations) { this.recentRegistrations = recentRegistrations; }
+
+    public Map<LocalDate, Long> getRegistrationsPerDay() { return registrationsPerDay; }
+    public void setRegistrationsPerDay(Map<LocalDate, Long> registrationsPerDay) { this.registrationsPerDay = registrationsPerDay; }
+
     public LocalDateTime getGeneratedAt() { return generatedAt; }
     public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
 }
\ No newline at end of file
@@ -22,6 +22,14 @@ public class Group {
     @Size(min = 2, max = 100, message = "Group name must be between 2 and 100 characters")
     private String name;
 
+    // Maintained by GroupService on every membership transition, repaired by GroupMemberCountReconciler
+    @Column(name = "accepted_member_count", nullable = false)
+    private long acceptedMemberCount = 0;
+
+    // Set when a large group is deleted; GroupPurger removes its members and the row later
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -60,6 +68,12 @@ public class Group {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
+    public long getAcceptedMemberCount() { return acceptedMemberCount; }
+    public void setAcceptedMemberCount(long acceptedMemberCount) { this.acceptedMemberCount = acceptedMemberCount; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
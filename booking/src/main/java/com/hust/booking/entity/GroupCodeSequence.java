@@ -0,0 +1,35 @@
+package com.hust.booking.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Shared high-water mark for group code allocation. Each node reserves a block of
+ * sequence numbers by advancing next_value under a row lock, then hands them out locally.
+ */
+@Entity
+@Table(name = "group_code_sequence")
+public class GroupCodeSequence {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    // Constructors
+    public GroupCodeSequence() {}
+
+    public GroupCodeSequence(Integer id, long nextValue) {
+        this.id = id;
+        this.nextValue = nextValue;
+    }
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public long getNextValue() { return nextValue; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+}
@@ -9,6 +9,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "group_members", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "group_id"})
+}, indexes = {
+        // Keyset pagination of a group's members ordered by (joined_at, id)
+        @Index(name = "idx_group_members_group_joined", columnList = "group_id, joined_at, id")
 })
 public class GroupMember {
 
@@ -0,0 +1,38 @@
+package com.hust.booking.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Access tokens revoked before their natural expiry (e.g. on logout).
+ * Rows are only needed until expires_at, so the table stays small.
+ */
+@Entity
+@Table(name = "revoked_access_tokens", indexes = {
+        @Index(name = "idx_revoked_access_tokens_expires_at", columnList = "expires_at")
+})
+public class RevokedAccessToken {
+
+    @Id
+    @Column(name = "jti", length = 36)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public RevokedAccessToken() {}
+
+    public RevokedAccessToken(String jti, LocalDateTime expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getJti() { return jti; }
+    public void setJti(String jti) { this.jti = jti; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
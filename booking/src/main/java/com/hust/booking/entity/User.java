@@ -12,7 +12,13 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Keyset pagination of the user directory: sort key + id tie-breaker
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_users_full_name_id", columnList = "full_name, id"),
+        // Incremental search index refresh walks (updated_at, id)
+        @Index(name = "idx_users_updated_at_id", columnList = "updated_at, id")
+})
 public class User implements UserDetails {
 
     @Id
@@ -39,12 +45,9 @@ public class User implements UserDetails {
     @Size(min = 6, message = "Password must be at least 6 characters")
     private String password;
 
-    // NEW: Refresh token field
-    @Column(name = "refresh_token", length = 1000)
-    private String refreshToken;
-
-    @Column(name = "refresh_token_expires_at")
-    private LocalDateTime refreshTokenExpiresAt;
+    // Bumped to invalidate every access token issued before the change
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
 
     @Column(nullable = false)
     private boolean enabled = true;
@@ -116,7 +119,7 @@ public class User implements UserDetails {
         return enabled;
     }
 
-    // Getters and Setters (including new refresh token fields)
+    // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -132,13 +135,8 @@ public class User implements UserDetails {
     public String getPassword() { return password; }
     public void setPassword(String password) { this.password = password; }
 
-    public String getRefreshToken() { return refreshToken; }
-    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
-
-    public LocalDateTime getRefreshTokenExpiresAt() { return refreshTokenExpiresAt; }
-    public void setRefreshTokenExpiresAt(LocalDateTime refreshTokenExpiresAt) {
-        this.refreshTokenExpiresAt = refreshTokenExpiresAt;
-    }
+    public int getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
@@ -0,0 +1,39 @@
+package com.hust.booking.event;
+
+import com.hust.booking.dto.UserProfileResponse;
+
+/**
+ * Published when a user is registered, updated or deleted. Listeners that keep in-memory
+ * views of users (search index, stats) apply it after the surrounding transaction commits.
+ */
+public class UserChangedEvent {
+
+    public enum Type { REGISTERED, UPDATED, DELETED }
+
+    private final Type type;
+    // State after the change; the last known state for DELETED
+    private final UserProfileResponse profile;
+
+    private UserChangedEvent(Type type, UserProfileResponse profile) {
+        this.type = type;
+        this.profile = profile;
+    }
+
+    public static UserChangedEvent registered(UserProfileResponse profile) {
+        return new UserChangedEvent(Type.REGISTERED, profile);
+    }
+
+    public static UserChangedEvent updated(UserProfileResponse profile) {
+        return new UserChangedEvent(Type.UPDATED, profile);
+    }
+
+    public static UserChangedEvent deleted(UserProfileResponse profile) {
+        return new UserChangedEvent(Type.DELETED, profile);
+    }
+
+    public Type getType() { return type; }
+
+    public Long getUserId() { return profile.getId(); }
+
+    public UserProfileResponse getProfile() { return profile; }
+}
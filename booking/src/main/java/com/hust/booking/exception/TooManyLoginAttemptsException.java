@@ -0,0 +1,15 @@
+package com.hust.booking.exception;
+
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.hust.booking.repository;
+
+import com.hust.booking.entity.GroupCodeSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GroupCodeSequenceRepository extends JpaRepository<GroupCodeSequence, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM GroupCodeSequence s WHERE s.id = :id")
+    Optional<GroupCodeSequence> findByIdForUpdate(@Param("id") Integer id);
+}
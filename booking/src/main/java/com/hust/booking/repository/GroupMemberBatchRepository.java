@@ -0,0 +1,75 @@
+package com.hust.booking.repository;
+
+import com.hust.booking.enums.MemberRole;
+import com.hust.booking.enums.MemberStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Membership inserts through plain JDBC, relying on the (user_id, group_id) unique key so
+ * "add if not already a member" is a single statement. Only that duplicate is tolerated:
+ * unlike INSERT IGNORE, any other error (foreign keys, truncation) still fails the statement.
+ * With rewriteBatchedStatements on the MySQL URL a whole batch travels as one multi-value INSERT.
+ */
+@Repository
+public class GroupMemberBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO group_members (user_id, group_id, status, role, joined_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert the membership unless the user is already in the group.
+     * Returns the new membership id, or null if a membership already existed.
+     */
+    public Long insertIfAbsent(Long userId, Long groupId, MemberStatus status, MemberRole role, LocalDateTime now) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                ps.setLong(1, userId);
+                ps.setLong(2, groupId);
+                ps.setString(3, status.name());
+                ps.setString(4, role.name());
+                ps.setTimestamp(5, timestamp);
+                ps.setTimestamp(6, timestamp);
+                return ps;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            // MySQL rolls back just the statement, so the caller's transaction carries on
+            return null;
+        }
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Insert one membership per user. Callers must have ruled out existing memberships under a
+     * lock; a duplicate fails the whole batch. Row counts are not returned: rewritten batches
+     * report SUCCESS_NO_INFO per row.
+     */
+    public void insertAll(Long groupId, List<Long> userIds, MemberStatus status, MemberRole role) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, userIds, userIds.size(), (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, groupId);
+            ps.setString(3, status.name());
+            ps.setString(4, role.name());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+    }
+}
@@ -1,16 +1,23 @@
 package com.hust.booking.repository;
 
 
+import com.hust.booking.dto.GroupMemberResponse;
 import com.hust.booking.entity.GroupMember;
 import com.hust.booking.enums.MemberRole;
 import com.hust.booking.enums.MemberStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +26,15 @@ public interface GroupMemberRepository extends JpaRepository<GroupMember, Long>
 
     Optional<GroupMember> findByUserIdAndGroupId(Long userId, Long groupId);
 
+    // Row lock so concurrent transitions of one membership adjust the group counter exactly once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT gm FROM GroupMember gm WHERE gm.id = :id")
+    Optional<GroupMember> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT gm FROM GroupMember gm WHERE gm.userId = :userId AND gm.groupId = :groupId")
+    Optional<GroupMember> findByUserIdAndGroupIdForUpdate(@Param("userId") Long userId, @Param("groupId") Long groupId);
+
     List<GroupMember> findByGroupIdAndStatus(Long groupId, MemberStatus status);
 
     List<GroupMember> findByUserIdAndStatus(Long userId, MemberStatus status);
@@ -35,11 +51,87 @@ public interface GroupMemberRepository extends JpaRepository<GroupMember, Long>
     @Query("SELECT COUNT(gm) FROM GroupMember gm WHERE gm.groupId = :groupId AND gm.status = :status")
     Long countByGroupIdAndStatus(@Param("groupId") Long groupId, @Param("status") MemberStatus status);
 
+    // Keyset pages of a group's members, with user and group columns joined in the same statement
+    @Query("SELECT new com.hust.booking.dto.GroupMemberResponse(gm.id, gm.userId, u.email, u.fullName, " +
+            "gm.groupId, g.name, gm.status, gm.role, gm.joinedAt, gm.updatedAt) " +
+            "FROM GroupMember gm JOIN gm.user u JOIN gm.group g " +
+            "WHERE gm.groupId = :groupId AND g.deletedAt IS NULL AND (:status IS NULL OR gm.status = :status) " +
+            "ORDER BY gm.joinedAt, gm.id")
+    List<GroupMemberResponse> findMemberPage(@Param("groupId") Long groupId,
+                                             @Param("status") MemberStatus status,
+                                             Limit limit);
+
+    @Query("SELECT new com.hust.booking.dto.GroupMemberResponse(gm.id, gm.userId, u.email, u.fullName, " +
+            "gm.groupId, g.name, gm.status, gm.role, gm.joinedAt, gm.updatedAt) " +
+            "FROM GroupMember gm JOIN gm.user u JOIN gm.group g " +
+            "WHERE gm.groupId = :groupId AND g.deletedAt IS NULL AND (:status IS NULL OR gm.status = :status) " +
+            "AND (gm.joinedAt > :afterJoinedAt OR (gm.joinedAt = :afterJoinedAt AND gm.id > :afterId)) " +
+            "ORDER BY gm.joinedAt, gm.id")
+    List<GroupMemberResponse> findMemberPageAfter(@Param("groupId") Long groupId,
+                                                  @Param("status") MemberStatus status,
+                                                  @Param("afterJoinedAt") LocalDateTime afterJoinedAt,
+                                                  @Param("afterId") Long afterId,
+                                                  Limit limit);
+
+    // {groupId, role, status} for every membership of the user, for authorization checks
+    @Query("SELECT gm.groupId, gm.role, gm.status FROM GroupMember gm JOIN gm.group g " +
+            "WHERE gm.userId = :userId AND g.deletedAt IS NULL")
+    List<Object[]> findMembershipSummariesByUserId(@Param("userId") Long userId);
+
+    // A user's memberships joined with their groups only; the caller already knows the user's own fields
+    @Query("SELECT new com.hust.booking.dto.GroupMemberResponse(gm.id, gm.userId, CAST(NULL AS String), " +
+            "CAST(NULL AS String), gm.groupId, g.name, gm.status, gm.role, gm.joinedAt, gm.updatedAt) " +
+            "FROM GroupMember gm JOIN gm.group g " +
+            "WHERE gm.userId = :userId AND g.deletedAt IS NULL " +
+            "AND (:status IS NULL OR gm.status = :status) AND (:role IS NULL OR gm.role = :role) " +
+            "ORDER BY gm.id")
+    List<GroupMemberResponse> findMembershipsByUserId(@Param("userId") Long userId,
+                                                      @Param("status") MemberStatus status,
+                                                      @Param("role") MemberRole role,
+                                                      Pageable pageable);
+
     @Modifying
     @Transactional
     @Query("UPDATE GroupMember gm SET gm.status = :status WHERE gm.id = :id")
     void updateMemberStatus(@Param("id") Long id, @Param("status") MemberStatus status);
 
+    // {userId, membershipId} for the given users' memberships in one group
+    @Query("SELECT gm.userId, gm.id FROM GroupMember gm WHERE gm.groupId = :groupId AND gm.userId IN :userIds")
+    List<Object[]> findMemberIdsByGroupIdAndUserIdIn(@Param("groupId") Long groupId,
+                                                     @Param("userIds") Collection<Long> userIds);
+
+    // Same rows as findMemberIdsByGroupIdAndUserIdIn, locked; for users without a membership the
+    // (user_id, group_id) key range is gap-locked, so no other transaction can insert them meanwhile
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT gm.userId, gm.id FROM GroupMember gm WHERE gm.groupId = :groupId AND gm.userId IN :userIds")
+    List<Object[]> findMemberIdsByGroupIdAndUserIdInForUpdate(@Param("groupId") Long groupId,
+                                                              @Param("userIds") Collection<Long> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT gm FROM GroupMember gm WHERE gm.groupId = :groupId AND gm.id IN :ids")
+    List<GroupMember> findByGroupIdAndIdInForUpdate(@Param("groupId") Long groupId, @Param("ids") Collection<Long> ids);
+
+    // Only rows not already in the target status change, so repeated requests are no-ops
+    @Modifying
+    @Transactional
+    @Query("UPDATE GroupMember gm SET gm.status = :status, gm.updatedAt = :now " +
+            "WHERE gm.groupId = :groupId AND gm.id IN :ids AND gm.status <> :status")
+    int updateStatusWhereDifferent(@Param("groupId") Long groupId, @Param("ids") Collection<Long> ids,
+                                   @Param("status") MemberStatus status, @Param("now") LocalDateTime now);
+
+    // Next chunk of a group's membership ids, so deletes touch a bounded number of rows
+    @Query("SELECT gm.id FROM GroupMember gm WHERE gm.groupId = :groupId ORDER BY gm.id")
+    List<Long> findIdsByGroupId(@Param("groupId") Long groupId, Limit limit);
+
+    // Same chunk as findIdsByGroupId, as {id, userId} rows
+    @Query("SELECT gm.id, gm.userId FROM GroupMember gm WHERE gm.groupId = :groupId ORDER BY gm.id")
+    List<Object[]> findIdsAndUserIdsByGroupId(@Param("groupId") Long groupId, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GroupMember gm WHERE gm.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM GroupMember gm WHERE gm.userId = :userId AND gm.groupId = :groupId")
@@ -1,11 +1,20 @@
 package com.hust.booking.repository;
 
+import com.hust.booking.dto.GroupResponse;
 import com.hust.booking.entity.Group;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +23,16 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
 
     Optional<Group> findByCode(String code);
 
+    // Groups pending purge are invisible to every read path
+    Optional<Group> findByCodeAndDeletedAtIsNull(String code);
+
+    Optional<Group> findByIdAndDeletedAtIsNull(Long id);
+
+    // Shared row lock: a concurrent soft delete either waits for the caller's transaction or is seen by it
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT g FROM Group g WHERE g.id = :id AND g.deletedAt IS NULL")
+    Optional<Group> findActiveByIdForShare(@Param("id") Long id);
+
     boolean existsByCode(String code);
 
     List<Group> findByNameContainingIgnoreCase(String name);
@@ -26,4 +45,60 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
 
     @Query("SELECT COUNT(m) FROM GroupMember m WHERE m.groupId = :groupId AND m.status = 'ACCEPTED'")
     Long countAcceptedMembersByGroupId(@Param("groupId") Long groupId);
-}
\ No newline at end of file
+
+    // Listings read the denormalized counter, so they stay a single statement with no aggregation
+    @Query("SELECT new com.hust.booking.dto.GroupResponse(g.id, g.code, g.name, g.createdAt, g.updatedAt, g.acceptedMemberCount) " +
+            "FROM Group g JOIN g.members m " +
+            "WHERE m.userId = :userId AND m.status = 'ACCEPTED' AND g.deletedAt IS NULL " +
+            "ORDER BY g.id")
+    List<GroupResponse> findGroupSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.hust.booking.dto.GroupResponse(g.id, g.code, g.name, g.createdAt, g.updatedAt, g.acceptedMemberCount) " +
+            "FROM Group g JOIN g.members m " +
+            "WHERE m.userId = :userId AND m.role = 'OWNER' AND g.deletedAt IS NULL " +
+            "ORDER BY g.id")
+    List<GroupResponse> findGroupSummariesOwnedByUser(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Group g SET g.acceptedMemberCount = g.acceptedMemberCount + :delta WHERE g.id = :groupId")
+    int adjustAcceptedMemberCount(@Param("groupId") Long groupId, @Param("delta") long delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Group g SET g.deletedAt = :now WHERE g.id = :groupId AND g.deletedAt IS NULL")
+    int markDeleted(@Param("groupId") Long groupId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT g.id FROM Group g WHERE g.deletedAt IS NOT NULL ORDER BY g.id")
+    List<Long> findDeletedGroupIds(Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Group g WHERE g.id = :groupId")
+    int deleteGroupRow(@Param("groupId") Long groupId);
+
+    @Query("SELECT g.code FROM Group g WHERE g.code IN :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
+    @Query("SELECT MIN(g.id) FROM Group g")
+    Long findMinId();
+
+    @Query("SELECT MAX(g.id) FROM Group g")
+    Long findMaxId();
+
+    // Groups in [fromId, toId) whose stored counter disagrees with group_members: {id, stored, actual}
+    @Query("SELECT g.id, g.acceptedMemberCount, COUNT(a.id) FROM Group g " +
+            "LEFT JOIN GroupMember a ON a.groupId = g.id AND a.status = 'ACCEPTED' " +
+            "WHERE g.id >= :fromId AND g.id < :toId " +
+            "GROUP BY g.id, g.acceptedMemberCount " +
+            "HAVING g.acceptedMemberCount <> COUNT(a.id)")
+    List<Object[]> findMemberCountDrift(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Recomputed inside the UPDATE so a transition committed after the drift scan is not lost
+    @Modifying
+    @Transactional
+    @Query("UPDATE Group g SET g.acceptedMemberCount = " +
+            "(SELECT COUNT(a) FROM GroupMember a WHERE a.groupId = g.id AND a.status = 'ACCEPTED') " +
+            "WHERE g.id = :groupId")
+    int recomputeAcceptedMemberCount(@Param("groupId") Long groupId);
+}
@@ -0,0 +1,55 @@
+package com.hust.booking.repository;
+
+import com.hust.booking.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    long countByUserIdAndExpiresAtAfter(Long userId, LocalDateTime now);
+
+    // Compare-and-set: only succeeds while the row still holds the presented token
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken rt SET rt.tokenHash = :newHash, rt.expiresAt = :expiresAt, rt.lastUsedAt = :now " +
+            "WHERE rt.id = :id AND rt.tokenHash = :oldHash")
+    int rotate(@Param("id") Long id,
+               @Param("oldHash") String oldHash,
+               @Param("newHash") String newHash,
+               @Param("expiresAt") LocalDateTime expiresAt,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken rt WHERE rt.userId = :userId AND rt.tokenHash = :tokenHash")
+    int revoke(@Param("userId") Long userId, @Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken rt WHERE rt.userId = :userId")
+    int revokeAll(@Param("userId") Long userId);
+
+    @Query("SELECT MIN(rt.id) FROM RefreshToken rt")
+    Long findMinId();
+
+    @Query("SELECT MAX(rt.id) FROM RefreshToken rt")
+    Long findMaxId();
+
+    // Bounded by a primary-key range so each statement only locks a small slice of the table
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken rt WHERE rt.id >= :fromId AND rt.id < :toId AND rt.expiresAt < :now")
+    int deleteExpiredInRange(@Param("fromId") Long fromId,
+                             @Param("toId") Long toId,
+                             @Param("now") LocalDateTime now);
+}
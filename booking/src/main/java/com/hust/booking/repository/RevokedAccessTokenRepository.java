@@ -0,0 +1,23 @@
+package com.hust.booking.repository;
+
+import com.hust.booking.entity.RevokedAccessToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, String> {
+
+    List<RevokedAccessToken> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedAccessToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,36 +1,119 @@
 package com.hust.booking.repository;
 
+import com.hust.booking.dto.UserProfileResponse;
 import com.hust.booking.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
-    Optional<User> findByPhone(String phone);
+    // {id, email} for every known address in one IN query
+    @Query("SELECT u.id, u.email FROM User u WHERE u.email IN :emails")
+    List<Object[]> findIdsByEmailIn(@Param("emails") Collection<String> emails);
 
-    Optional<User> findByRefreshToken(String refreshToken);
+    Optional<User> findByPhone(String phone);
 
     boolean existsByEmail(String email);
 
     boolean existsByPhone(String phone);
 
+    // Profile reads select only the profile columns (no password hash or refresh token) and
+    // produce DTOs, so nothing enters the persistence context or gets dirty-checked
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u WHERE u.id = :id")
+    Optional<UserProfileResponse> findProfileById(@Param("id") Long id);
+
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u WHERE u.email = :email")
+    Optional<UserProfileResponse> findProfileByEmail(@Param("email") String email);
+
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u WHERE u.phone = :phone")
+    Optional<UserProfileResponse> findProfileByPhone(@Param("phone") String phone);
+
     // Find users by name pattern
-    List<User> findByFullNameContainingIgnoreCase(String name);
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u " +
+            "WHERE LOWER(u.fullName) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY u.id")
+    List<UserProfileResponse> findProfilesByFullNameContaining(@Param("name") String name, Pageable pageable);
+
+    // Profiles in id order after afterId: search index rebuilds and the id-sorted directory
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserProfileResponse> findProfilesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Profiles changed after (updatedAt, afterId), oldest change first: incremental search index refresh
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u " +
+            "WHERE u.updatedAt > :updatedAt OR (u.updatedAt = :updatedAt AND u.id > :afterId) " +
+            "ORDER BY u.updatedAt, u.id")
+    List<UserProfileResponse> findProfilesUpdatedAfter(@Param("updatedAt") LocalDateTime updatedAt,
+                                                       @Param("afterId") Long afterId, Limit limit);
+
+    // User directory pages. Newest first by createdAt, alphabetical by fullName, id breaks ties;
+    // each "after" variant seeks past the previous page's last row instead of using an offset.
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserProfileResponse> findProfilesByCreatedAt(Limit limit);
+
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u " +
+            "WHERE u.createdAt < :afterCreatedAt OR (u.createdAt = :afterCreatedAt AND u.id < :afterId) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<UserProfileResponse> findProfilesByCreatedAtAfter(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                           @Param("afterId") Long afterId,
+                                                           Limit limit);
 
-    // Find recently registered users
-    @Query("SELECT u FROM User u WHERE u.createdAt >= :date ORDER BY u.createdAt DESC")
-    List<User> findRecentlyRegisteredUsers(@Param("date") LocalDateTime date);
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u ORDER BY u.fullName, u.id")
+    List<UserProfileResponse> findProfilesByFullName(Limit limit);
+
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u " +
+            "WHERE u.fullName > :afterFullName OR (u.fullName = :afterFullName AND u.id > :afterId) " +
+            "ORDER BY u.fullName, u.id")
+    List<UserProfileResponse> findProfilesByFullNameAfter(@Param("afterFullName") String afterFullName,
+                                                          @Param("afterId") Long afterId,
+                                                          Limit limit);
+
+    // Offset page without a COUNT query; the sort comes from the Pageable
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u")
+    Slice<UserProfileResponse> findProfileSlice(Pageable pageable);
+
+    // Every profile in id order, read row by row: MySQL Connector/J streams the result set
+    // instead of buffering it when the fetch size is Integer.MIN_VALUE. Consume inside a transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.hust.booking.dto.UserProfileResponse(u.id, u.email, u.phone, u.fullName, " +
+            "u.createdAt, u.updatedAt, u.enabled) FROM User u ORDER BY u.id")
+    Stream<UserProfileResponse> streamAllProfiles();
+
+    // {day, registrations} for each day since the given instant that had any
+    @Query("SELECT CAST(u.createdAt AS LocalDate), COUNT(u) FROM User u WHERE u.createdAt >= :since " +
+            "GROUP BY CAST(u.createdAt AS LocalDate)")
+    List<Object[]> countRegistrationsPerDaySince(@Param("since") LocalDateTime since);
 
     // Count total users
     @Query("SELECT COUNT(u) FROM User u")
@@ -47,18 +130,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Modifying
     @Transactional
-    @Query("UPDATE User u SET u.refreshToken = :refreshToken, u.refreshTokenExpiresAt = :expiresAt WHERE u.id = :userId")
-    void updateRefreshToken(@Param("userId") Long userId,
-                            @Param("refreshToken") String refreshToken,
-                            @Param("expiresAt") LocalDateTime expiresAt);
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :userId")
+    void incrementTokenVersion(@Param("userId") Long userId);
 
-    @Modifying
-    @Transactional
-    @Query("UPDATE User u SET u.refreshToken = null, u.refreshTokenExpiresAt = null WHERE u.id = :userId")
-    void clearRefreshToken(@Param("userId") Long userId);
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :userId")
+    Optional<Integer> findTokenVersionById(@Param("userId") Long userId);
 
-    @Modifying
-    @Transactional
-    @Query("UPDATE User u SET u.refreshToken = null, u.refreshTokenExpiresAt = null WHERE u.refreshTokenExpiresAt < :now")
-    void clearExpiredRefreshTokens(@Param("now") LocalDateTime now);
+    // [userId, tokenVersion] for every user that has ever revoked their tokens
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findRevokedTokenVersions();
 }
\ No newline at end of file
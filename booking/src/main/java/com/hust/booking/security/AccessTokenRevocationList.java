@@ -0,0 +1,117 @@
+package com.hust.booking.security;
+
+import com.hust.booking.entity.RevokedAccessToken;
+import com.hust.booking.repository.RevokedAccessTokenRepository;
+import com.hust.booking.util.BloomFilter;
+import com.hust.booking.util.TransactionHooks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens (by jti) revoked before they expire.
+ *
+ * The request path only reads: a Bloom filter probe answers the common "not revoked" case,
+ * and the map is consulted only on a filter hit. Entries drop out at their token's own expiry.
+ * The set is persisted to revoked_access_tokens, reloaded at startup and re-synced periodically
+ * so revocations made on other nodes are picked up.
+ */
+@Component
+public class AccessTokenRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenRevocationList.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Autowired
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    // jti -> expiry in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+        Gauge.builder("app.jwt.revoked_tokens", revoked, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromStore() {
+        syncFromStore();
+        log.info("Loaded {} revoked access tokens", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Persist the revocation and apply it in memory once the transaction commits.
+     */
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedAccessTokenRepository.save(new RevokedAccessToken(jti, toLocalDateTime(expiresAt)));
+        TransactionHooks.afterCommit(() -> add(jti, expiresAt.getTime()));
+    }
+
+    /**
+     * Merge revocations from the table, drop expired entries and rebuild the filter
+     * so it does not fill up with dead jtis.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:15000}",
+            initialDelayString = "${app.jwt.revocation.sync-interval-ms:15000}")
+    public void syncFromStore() {
+        for (RevokedAccessToken token : revokedAccessTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            add(token.getJti(), token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+
+        long now = System.currentTimeMillis();
+        if (revoked.values().removeIf(expiresAt -> expiresAt <= now)) {
+            rebuildFilter();
+            revokedAccessTokenRepository.deleteExpired(LocalDateTime.now());
+        }
+    }
+
+    // Writers are serialized so a rebuild can never drop a concurrently added jti
+    private synchronized void add(String jti, long expiresAtMillis) {
+        if (revoked.putIfAbsent(jti, expiresAtMillis) == null) {
+            filter.add(jti);
+        }
+    }
+
+    private synchronized void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
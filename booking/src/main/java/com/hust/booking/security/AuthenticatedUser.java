@@ -0,0 +1,88 @@
+package com.hust.booking.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Lightweight principal stored in the SecurityContext for JWT-authenticated requests.
+ * It can be built either from a loaded {@link UserSnapshot} or straight from verified token claims.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String fullName;
+    private final int tokenVersion;
+    private final boolean enabled;
+
+    // jti and expiry of the access token this request was authenticated with
+    private final String tokenId;
+    private final Date tokenExpiresAt;
+
+    public AuthenticatedUser(Long id, String email, String fullName, int tokenVersion, boolean enabled,
+                             String tokenId, Date tokenExpiresAt) {
+        this.id = id;
+        this.email = email;
+        this.fullName = fullName;
+        this.tokenVersion = tokenVersion;
+        this.enabled = enabled;
+        this.tokenId = tokenId;
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    public static AuthenticatedUser from(UserSnapshot user, VerifiedToken token) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getFullName(),
+                user.getTokenVersion(), user.isEnabled(), token.getId(), token.getExpiration());
+    }
+
+    /**
+     * Build the principal from claims embedded by JwtService#generateAccessToken.
+     * Returns null for tokens issued before those claims existed.
+     */
+    public static AuthenticatedUser fromToken(VerifiedToken token) {
+        Long userId = token.getClaim("uid", Long.class);
+        if (userId == null) {
+            return null;
+        }
+        Integer version = token.getClaim("ver", Integer.class);
+        return new AuthenticatedUser(userId, token.getSubject(), token.getClaim("name", String.class),
+                version != null ? version : 0, true, token.getId(), token.getExpiration());
+    }
+
+    public Long getId() { return id; }
+
+    public String getEmail() { return email; }
+
+    public String getFullName() { return fullName; }
+
+    public int getTokenVersion() { return tokenVersion; }
+
+    public String getTokenId() { return tokenId; }
+
+    public Date getTokenExpiresAt() { return tokenExpiresAt; }
+
+    // UserDetails implementation
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
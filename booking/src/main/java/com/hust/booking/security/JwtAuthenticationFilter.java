@@ -6,10 +6,9 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,7 +21,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtService jwtService;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private AccessTokenRevocationList revocationList;
+
+    // When enabled the principal is rebuilt from token claims instead of loading the user row
+    @Value("${app.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -31,12 +40,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtService.isTokenValid(jwt)) {
-                String username = jwtService.extractUsername(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            VerifiedToken token = jwt != null ? jwtService.verify(jwt).orElse(null) : null;
+            boolean usable = token != null && token.isAccessToken() && !revocationList.isRevoked(token.getId());
+            AuthenticatedUser principal = usable ? resolvePrincipal(token) : null;
+            if (principal != null) {
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -48,6 +57,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private AuthenticatedUser resolvePrincipal(VerifiedToken token) {
+        Integer tokenVersion = token.getClaim("ver", Integer.class);
+        int version = tokenVersion != null ? tokenVersion : 0;
+
+        if (statelessPrincipal) {
+            AuthenticatedUser principal = AuthenticatedUser.fromToken(token);
+            if (principal != null && tokenVersionRegistry.isCurrent(principal.getId(), version)) {
+                return principal;
+            }
+            return null;
+        }
+
+        UserSnapshot user = userDetailsService.loadUserByUsername(token.getSubject());
+        return version >= user.getTokenVersion() ? AuthenticatedUser.from(user, token) : null;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
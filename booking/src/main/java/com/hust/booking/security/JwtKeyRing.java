@@ -0,0 +1,140 @@
+package com.hust.booking.security;
+
+import com.hust.booking.config.JwtKeyRingProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * All keys this node can verify JWTs with, indexed by kid, plus the one it signs with.
+ * Keys are decoded once at startup; resolving a token's key is a single map lookup.
+ * Tokens without a kid (issued before key rotation existed) resolve to the legacy "default" key.
+ */
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    public static final String DEFAULT_KID = "default";
+
+    @Autowired
+    private JwtKeyRingProperties properties;
+
+    @Value("${app.jwt.secret}")
+    private String legacySecret;
+
+    private Map<String, Key> verificationKeys;
+    private List<Map<String, ?>> publicJwks;
+    private String activeKid;
+    private Key activeSigningKey;
+
+    @PostConstruct
+    void init() {
+        Map<String, Key> verification = new HashMap<>();
+        Map<String, Key> signing = new HashMap<>();
+        List<Map<String, ?>> jwks = new ArrayList<>();
+
+        Key legacyKey = Keys.hmacShaKeyFor(legacySecret.getBytes());
+        verification.put(DEFAULT_KID, legacyKey);
+        signing.put(DEFAULT_KID, legacyKey);
+
+        for (JwtKeyRingProperties.Key key : properties.getKeys()) {
+            String kid = key.getKid();
+            if (kid == null || kid.isBlank() || verification.containsKey(kid)) {
+                throw new IllegalStateException("JWT key ring entries need a unique kid, got: " + kid);
+            }
+            String type = key.getType().toUpperCase(Locale.ROOT);
+            if (type.equals("HMAC")) {
+                Key secretKey = Keys.hmacShaKeyFor(key.getSecret().getBytes());
+                verification.put(kid, secretKey);
+                signing.put(kid, secretKey);
+                continue;
+            }
+
+            String algorithm = switch (type) {
+                case "RSA" -> "RSA";
+                case "EDDSA" -> "Ed25519";
+                default -> throw new IllegalStateException("Unsupported JWT key type " + type + " for kid " + kid);
+            };
+            PublicKey publicKey = decodePublicKey(algorithm, key.getPublicKey());
+            verification.put(kid, publicKey);
+            jwks.add(Jwks.builder().key(publicKey).id(kid).build());
+            if (key.getPrivateKey() != null && !key.getPrivateKey().isBlank()) {
+                signing.put(kid, decodePrivateKey(algorithm, key.getPrivateKey()));
+            }
+        }
+
+        activeKid = properties.getActiveKid();
+        activeSigningKey = signing.get(activeKid);
+        if (activeSigningKey == null) {
+            throw new IllegalStateException("No signing key configured for active kid " + activeKid);
+        }
+        verificationKeys = Collections.unmodifiableMap(verification);
+        publicJwks = Collections.unmodifiableList(jwks);
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        Key key = verificationKeys.get(kid != null ? kid : DEFAULT_KID);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public Key getActiveSigningKey() {
+        return activeSigningKey;
+    }
+
+    /**
+     * Public halves of the asymmetric keys, as JWKs. HMAC secrets are never exposed.
+     */
+    public List<Map<String, ?>> getPublicJwks() {
+        return publicJwks;
+    }
+
+    private PublicKey decodePublicKey(String algorithm, String base64) {
+        if (base64 == null || base64.isBlank()) {
+            throw new IllegalStateException(algorithm + " key ring entries need a public key");
+        }
+        try {
+            return KeyFactory.getInstance(algorithm)
+                    .generatePublic(new X509EncodedKeySpec(Base64.getMimeDecoder().decode(base64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " public key in JWT key ring", e);
+        }
+    }
+
+    private PrivateKey decodePrivateKey(String algorithm, String base64) {
+        try {
+            return KeyFactory.getInstance(algorithm)
+                    .generatePrivate(new PKCS8EncodedKeySpec(Base64.getMimeDecoder().decode(base64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " private key in JWT key ring", e);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.hust.booking.security;
+
+import com.hust.booking.exception.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory login throttle checked before any user lookup or bcrypt work.
+ *
+ * Every attempt takes a token from a per-email and a per-client-IP bucket. Consecutive failures
+ * beyond a threshold lock the key out for an exponentially growing period; IP failures also leak
+ * away over a time window, since many users may share one address.
+ *
+ * Keys are spread over lock-striped segments, each with its own access-ordered map, so a login
+ * only contends with logins whose keys hash to the same segment; the bucket state itself is
+ * updated with compare-and-set outside any lock. Each segment holds its share of max-entries:
+ * at capacity its least recently used unlocked bucket is dropped, so key spraying costs O(1)
+ * per attempt and never erases a lockout. When a full segment has only locked buckets to offer,
+ * a new key is not tracked and that key's check is skipped (the other key still applies), so
+ * a flood of locked-out keys cannot lock out everyone else.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private static final String EMAIL_PREFIX = "email:";
+    private static final String IP_PREFIX = "ip:";
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(15);
+    // Least recently used buckets looked at for an unlocked one to evict
+    private static final int EVICTION_SCAN_LIMIT = 32;
+    private static final int SEGMENTS = 16;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.login-throttle.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${app.security.login-throttle.email.refill-per-minute:5}")
+    private double emailRefillPerMinute;
+
+    @Value("${app.security.login-throttle.email.lockout-after-failures:5}")
+    private int emailLockoutThreshold;
+
+    @Value("${app.security.login-throttle.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${app.security.login-throttle.ip.refill-per-minute:30}")
+    private double ipRefillPerMinute;
+
+    @Value("${app.security.login-throttle.ip.lockout-after-failures:50}")
+    private int ipLockoutThreshold;
+
+    // Failures from one IP are forgotten at lockout-after-failures per window
+    @Value("${app.security.login-throttle.ip.failure-window-minutes:15}")
+    private long ipFailureWindowMinutes;
+
+    @Value("${app.security.login-throttle.base-lockout-seconds:30}")
+    private long baseLockoutSeconds;
+
+    @Value("${app.security.login-throttle.max-lockout-seconds:900}")
+    private long maxLockoutSeconds;
+
+    @Value("${app.security.login-throttle.max-entries:100000}")
+    private int maxEntries;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private Policy emailPolicy;
+    private Policy ipPolicy;
+    private Counter rejected;
+    private Counter untracked;
+
+    @PostConstruct
+    void init() {
+        emailPolicy = new Policy(emailCapacity, emailRefillPerMinute, emailLockoutThreshold, 0);
+        ipPolicy = new Policy(ipCapacity, ipRefillPerMinute, ipLockoutThreshold,
+                TimeUnit.MINUTES.toNanos(ipFailureWindowMinutes) / Math.max(1, ipLockoutThreshold));
+        int segmentCapacity = Math.max(1, maxEntries / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        rejected = Counter.builder("app.login_throttle.rejected").register(meterRegistry);
+        untracked = Counter.builder("app.login_throttle.untracked")
+                .description("Checks skipped because the key's segment was full of locked-out keys")
+                .register(meterRegistry);
+        Gauge.builder("app.login_throttle.keys", this, LoginAttemptLimiter::trackedKeys).register(meterRegistry);
+    }
+
+    /**
+     * Consume one attempt for the email and the client IP, or throw with the time to wait.
+     */
+    public void checkAllowed(String email, String clientIp) {
+        checkAllowed(email, clientIp, System.nanoTime());
+    }
+
+    void checkAllowed(String email, String clientIp, long now) {
+        if (!enabled) {
+            return;
+        }
+        long waitNanos = tryAcquire(EMAIL_PREFIX + normalize(email), emailPolicy, now);
+        if (clientIp != null) {
+            waitNanos = Math.max(waitNanos, tryAcquire(IP_PREFIX + clientIp, ipPolicy, now));
+        }
+        if (waitNanos > 0) {
+            rejected.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            throw new TooManyLoginAttemptsException(
+                    "Too many login attempts, please try again later", retryAfterSeconds);
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        recordFailure(email, clientIp, System.nanoTime());
+    }
+
+    void recordFailure(String email, String clientIp, long now) {
+        if (!enabled) {
+            return;
+        }
+        fail(EMAIL_PREFIX + normalize(email), emailPolicy, now);
+        if (clientIp != null) {
+            fail(IP_PREFIX + clientIp, ipPolicy, now);
+        }
+    }
+
+    public void recordSuccess(String email) {
+        String key = EMAIL_PREFIX + normalize(email);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.buckets.remove(key);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.buckets.values().removeIf(ref -> ref.get().isIdle(now));
+            }
+        }
+    }
+
+    int trackedKeys() {
+        int total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += segment.buckets.size();
+            }
+        }
+        return total;
+    }
+
+    private long tryAcquire(String key, Policy policy, long now) {
+        AtomicReference<Bucket> ref = bucketFor(key, policy, now);
+        if (ref == null) {
+            // Only locked-out buckets to make room with: let the untracked key through
+            untracked.increment();
+            return 0;
+        }
+        while (true) {
+            Bucket current = ref.get();
+            Bucket refilled = current.refill(policy, now);
+            if (refilled.lockedUntil - now > 0) {
+                return refilled.lockedUntil - now;
+            }
+            if (refilled.tokens < 1) {
+                return (long) ((1 - refilled.tokens) / policy.tokensPerNano);
+            }
+            Bucket next = new Bucket(refilled.tokens - 1, now, refilled.failures, refilled.failedAt,
+                    refilled.lockedUntil, refilled.capacity);
+            if (ref.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void fail(String key, Policy policy, long now) {
+        AtomicReference<Bucket> ref = bucketFor(key, policy, now);
+        if (ref == null) {
+            return;
+        }
+        while (true) {
+            Bucket current = ref.get();
+            int failures = current.decayedFailures(policy, now) + 1;
+            long lockedUntil = current.lockedUntil;
+            if (failures >= policy.lockoutThreshold) {
+                int doublings = Math.min(failures - policy.lockoutThreshold, 20);
+                long lockoutSeconds = Math.min(baseLockoutSeconds << doublings, maxLockoutSeconds);
+                lockedUntil = now + TimeUnit.SECONDS.toNanos(lockoutSeconds);
+            }
+            Bucket next = new Bucket(current.tokens, current.refilledAt, failures, now, lockedUntil,
+                    current.capacity);
+            if (ref.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // Null when the key's segment is full and no unlocked bucket was found to make room
+    private AtomicReference<Bucket> bucketFor(String key, Policy policy, long now) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            AtomicReference<Bucket> ref = segment.buckets.get(key);
+            if (ref != null) {
+                return ref;
+            }
+            if (segment.buckets.size() >= segment.capacity && !segment.evictLeastRecentlyUsed(now)) {
+                return null;
+            }
+            ref = new AtomicReference<>(Bucket.full(policy, now));
+            segment.buckets.put(key, ref);
+            return ref;
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // One stripe of the key space; its map is guarded by the segment itself
+    private static final class Segment {
+        private final int capacity;
+        // Access-ordered, so iteration starts at the least recently used key
+        private final LinkedHashMap<String, AtomicReference<Bucket>> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        // Drops the least recently used unlocked bucket. Locked ones passed over move to the back,
+        // so the next scan starts past them.
+        private boolean evictLeastRecentlyUsed(long now) {
+            List<String> locked = new ArrayList<>();
+            boolean evicted = false;
+            Iterator<Map.Entry<String, AtomicReference<Bucket>>> iterator = buckets.entrySet().iterator();
+            for (int i = 0; i < EVICTION_SCAN_LIMIT && iterator.hasNext(); i++) {
+                Map.Entry<String, AtomicReference<Bucket>> eldest = iterator.next();
+                if (eldest.getValue().get().isLocked(now)) {
+                    locked.add(eldest.getKey());
+                    continue;
+                }
+                iterator.remove();
+                evicted = true;
+                break;
+            }
+            locked.forEach(buckets::get);
+            return evicted;
+        }
+    }
+
+    private static final class Policy {
+        private final int capacity;
+        private final double tokensPerNano;
+        private final int lockoutThreshold;
+        // One failure is forgotten per this many nanos without another; 0 = never
+        private final long failureDecayNanos;
+
+        private Policy(int capacity, double refillPerMinute, int lockoutThreshold, long failureDecayNanos) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / TimeUnit.MINUTES.toNanos(1);
+            this.lockoutThreshold = lockoutThreshold;
+            this.failureDecayNanos = failureDecayNanos;
+        }
+    }
+
+    private static final class Bucket {
+        private final double tokens;
+        private final long refilledAt;
+        private final int failures;
+        private final long failedAt;
+        private final long lockedUntil;
+        private final int capacity;
+
+        private Bucket(double tokens, long refilledAt, int failures, long failedAt, long lockedUntil, int capacity) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+            this.failures = failures;
+            this.failedAt = failedAt;
+            this.lockedUntil = lockedUntil;
+            this.capacity = capacity;
+        }
+
+        private static Bucket full(Policy policy, long now) {
+            return new Bucket(policy.capacity, now, 0, now, now, policy.capacity);
+        }
+
+        private Bucket refill(Policy policy, long now) {
+            double refilled = Math.min(capacity, tokens + (now - refilledAt) * policy.tokensPerNano);
+            return new Bucket(refilled, now, failures, failedAt, lockedUntil, capacity);
+        }
+
+        private int decayedFailures(Policy policy, long now) {
+            if (policy.failureDecayNanos <= 0 || failures == 0) {
+                return failures;
+            }
+            long forgiven = (now - failedAt) / policy.failureDecayNanos;
+            return (int) Math.max(0, failures - forgiven);
+        }
+
+        private boolean isLocked(long now) {
+            return lockedUntil - now > 0;
+        }
+
+        private boolean isIdle(long now) {
+            return now - refilledAt > IDLE_NANOS && now - lockedUntil > 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.hust.booking.security;
+
+import com.hust.booking.repository.UserRepository;
+import com.hust.booking.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of users.token_version, used to revoke stateless access tokens
+ * without a database lookup. Only users that have ever revoked their tokens are tracked;
+ * everyone else is implicitly at version 0.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Long, Integer> currentVersions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedVersions() {
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            currentVersions.merge((Long) row[0], (Integer) row[1], Math::max);
+        }
+        log.info("Loaded token versions for {} users", currentVersions.size());
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= currentVersions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Invalidate every access token issued to the user so far.
+     * The in-memory version only moves once the surrounding transaction commits.
+     */
+    public void revokeAll(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        int newVersion = userRepository.findTokenVersionById(userId).orElse(0);
+        TransactionHooks.afterCommit(() -> currentVersions.merge(userId, newVersion, Math::max));
+    }
+
+    /**
+     * Reject every token of a deleted user for the rest of its lifetime.
+     */
+    public void revokeDeletedUser(Long userId) {
+        TransactionHooks.afterCommit(() -> currentVersions.put(userId, Integer.MAX_VALUE));
+    }
+}
@@ -1,13 +1,17 @@
 package com.hust.booking.security;
 
-import com.hust.booking.entity.User;
 import com.hust.booking.repository.UserRepository;
+import com.hust.booking.util.LocalCache;
+import com.hust.booking.util.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -15,12 +19,50 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.security.principal-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${app.security.principal-cache.ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    // email -> immutable snapshot; every authenticated request resolves its principal through here
+    private LocalCache<String, UserSnapshot> principalCache;
+
+    @PostConstruct
+    void initCache() {
+        principalCache = new LocalCache<String, UserSnapshot>(cacheMaxSize, Duration.ofSeconds(cacheTtlSeconds))
+                .bindTo(meterRegistry, "principals");
+    }
+
     @Override
-    @Transactional
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
+    public UserSnapshot loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (!cacheEnabled) {
+            return findUser(username);
+        }
+        return principalCache.get(username, this::findUser);
+    }
+
+    /**
+     * Drop the cached principal once the current transaction commits,
+     * so a concurrent request cannot re-cache the pre-update row.
+     */
+    public void evict(String email) {
+        TransactionHooks.afterCommit(() -> principalCache.invalidate(email));
+    }
+
+    public void evictUser(Long userId) {
+        TransactionHooks.afterCommit(() -> principalCache.invalidateIf(user -> user.getId().equals(userId)));
+    }
 
-        return user;
+    private UserSnapshot findUser(String email) {
+        return userRepository.findByEmail(email)
+                .map(UserSnapshot::of)
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + email));
     }
-}
\ No newline at end of file
+}
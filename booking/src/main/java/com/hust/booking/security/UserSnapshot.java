@@ -0,0 +1,89 @@
+package com.hust.booking.security;
+
+import com.hust.booking.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Immutable copy of the fields authentication needs from a {@link User}.
+ * This, not the entity, is what the principal cache shares between request threads.
+ */
+public final class UserSnapshot implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String phone;
+    private final String fullName;
+    private final String passwordHash;
+    private final int tokenVersion;
+    private final boolean enabled;
+    private final boolean accountNonExpired;
+    private final boolean accountNonLocked;
+    private final boolean credentialsNonExpired;
+
+    private UserSnapshot(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.phone = user.getPhone();
+        this.fullName = user.getFullName();
+        this.passwordHash = user.getPassword();
+        this.tokenVersion = user.getTokenVersion();
+        this.enabled = user.isEnabled();
+        this.accountNonExpired = user.isAccountNonExpired();
+        this.accountNonLocked = user.isAccountNonLocked();
+        this.credentialsNonExpired = user.isCredentialsNonExpired();
+    }
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user);
+    }
+
+    public Long getId() { return id; }
+
+    public String getEmail() { return email; }
+
+    public String getPhone() { return phone; }
+
+    public String getFullName() { return fullName; }
+
+    public int getTokenVersion() { return tokenVersion; }
+
+    // UserDetails implementation
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return accountNonExpired;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return accountNonLocked;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return credentialsNonExpired;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
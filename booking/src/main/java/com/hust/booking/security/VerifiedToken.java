@@ -0,0 +1,40 @@
+package com.hust.booking.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Immutable result of a single signature + expiry check on a JWT.
+ * Everything the request pipeline needs is read from here instead of re-parsing the token.
+ */
+public final class VerifiedToken {
+
+    private final Claims claims;
+
+    public VerifiedToken(Claims claims) {
+        this.claims = claims;
+    }
+
+    public String getId() { return claims.getId(); }
+
+    public String getSubject() { return claims.getSubject(); }
+
+    public String getType() { return claims.get("type", String.class); }
+
+    public Date getIssuedAt() { return claims.getIssuedAt(); }
+
+    public Date getExpiration() { return claims.getExpiration(); }
+
+    public <T> T getClaim(String name, Class<T> type) {
+        return claims.get(name, type);
+    }
+
+    public boolean isAccessToken() {
+        return "access".equals(getType());
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(getType());
+    }
+}
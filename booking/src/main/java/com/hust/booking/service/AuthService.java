@@ -2,21 +2,34 @@ package com.hust.booking.service;
 
 import com.hust.booking.dto.*;
 import com.hust.booking.entity.User;
+import com.hust.booking.event.UserChangedEvent;
 import com.hust.booking.exception.EmailAlreadyExistsException;
 import com.hust.booking.exception.PhoneAlreadyExistsException;
 import com.hust.booking.exception.InvalidRefreshTokenException;
 import com.hust.booking.repository.UserRepository;
+import com.hust.booking.security.AccessTokenRevocationList;
+import com.hust.booking.security.AuthenticatedUser;
+import com.hust.booking.security.LoginAttemptLimiter;
+import com.hust.booking.security.TokenVersionRegistry;
+import com.hust.booking.security.UserDetailsServiceImpl;
+import com.hust.booking.security.UserSnapshot;
+import com.hust.booking.util.LocalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 
 @Service
 public class AuthService {
@@ -33,28 +46,72 @@ public class AuthService {
     @Autowired
     private JwtService jwtService;
 
-    @Transactional
-    public AuthResponse authenticateUser(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()
-                )
-        );
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @Autowired
+    private AccessTokenRevocationList accessTokenRevocationList;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RefreshTokenSweeper refreshTokenSweeper;
+
+    @Value("${app.refresh-token.grace-period-ms:10000}")
+    private long refreshGracePeriodMs;
+
+    @Value("${app.refresh-token.grace-max-entries:10000}")
+    private int refreshGraceMaxEntries;
+
+    // hash of a presented refresh token -> the pair it was rotated into
+    private LocalCache<String, RefreshResult> recentRotations;
+
+    @PostConstruct
+    void initRecentRotations() {
+        recentRotations = new LocalCache<String, RefreshResult>(
+                refreshGraceMaxEntries, Duration.ofMillis(refreshGracePeriodMs))
+                .bindTo(meterRegistry, "refresh_rotations");
+    }
+
+    // Not transactional: a DB connection must not be held while bcrypt waits for a hashing slot
+    public AuthResponse authenticateUser(LoginRequest loginRequest, String clientIp, String deviceInfo) {
+        // Throttled attempts are rejected before any user lookup or bcrypt work
+        loginAttemptLimiter.checkAllowed(loginRequest.getEmail(), clientIp);
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getEmail(),
+                            loginRequest.getPassword()
+                    )
+            );
+        } catch (AuthenticationException e) {
+            loginAttemptLimiter.recordFailure(loginRequest.getEmail(), clientIp);
+            throw e;
+        }
+        loginAttemptLimiter.recordSuccess(loginRequest.getEmail());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        User user = (User) authentication.getPrincipal();
+        UserSnapshot user = (UserSnapshot) authentication.getPrincipal();
 
         // Generate tokens
         String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = jwtService.generateSecureRefreshToken();
-
-        // Save refresh token to database
-        userRepository.updateRefreshToken(
-                user.getId(),
-                refreshToken,
-                jwtService.getRefreshTokenExpiryDate()
-        );
+        // Each login opens its own session, so other devices stay signed in
+        String refreshToken = refreshTokenService.issue(user.getId(), deviceInfo);
 
         return new AuthResponse(
                 accessToken,
@@ -67,7 +124,7 @@ public class AuthService {
         );
     }
 
-    @Transactional
+    // Not transactional for the same reason; the unique constraints still guard the insert
     public RegisterResponse registerUser(RegisterRequest registerRequest) {
         // Check if email already exists
         if (userRepository.existsByEmail(registerRequest.getEmail())) {
@@ -87,49 +144,77 @@ public class AuthService {
         user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
 
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.registered(new UserProfileResponse(savedUser)));
 
         return new RegisterResponse("Đăng ký thành công");
     }
 
-    @Transactional
+    /**
+     * Concurrent refreshes of the same token (several tabs, retried requests) share one rotation,
+     * and for a short grace window the just-rotated token still resolves to the same new pair.
+     * Not transactional: the rotation commits before its result is handed to any waiter.
+     */
     public TokenResponse refreshToken(RefreshTokenRequest request) {
         String refreshToken = request.getRefreshToken();
+        return recentRotations.get(refreshTokenService.hash(refreshToken), hash -> rotate(refreshToken))
+                .getTokens();
+    }
 
-        // Find user by refresh token
-        User user = userRepository.findByRefreshToken(refreshToken)
-                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+    private RefreshResult rotate(String refreshToken) {
+        RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(refreshToken);
 
-        // Check if refresh token is expired
-        if (user.getRefreshTokenExpiresAt().isBefore(LocalDateTime.now())) {
-            userRepository.clearRefreshToken(user.getId());
-            throw new InvalidRefreshTokenException("Refresh token has expired");
+        User user = userRepository.findById(rotated.getUserId()).orElse(null);
+        if (user == null) {
+            // Sessions left behind by an account deleted before its tokens were revoked
+            refreshTokenService.revokeAll(rotated.getUserId());
+            throw new InvalidRefreshTokenException("Invalid refresh token");
         }
 
-        // Generate new tokens
-        String newAccessToken = jwtService.generateAccessToken(user);
-        String newRefreshToken = jwtService.generateSecureRefreshToken();
-
-        // Update refresh token in database
-        userRepository.updateRefreshToken(
-                user.getId(),
-                newRefreshToken,
-                jwtService.getRefreshTokenExpiryDate()
-        );
-
-        return new TokenResponse(
-                newAccessToken,
-                newRefreshToken,
+        TokenResponse tokens = new TokenResponse(
+                jwtService.generateAccessToken(UserSnapshot.of(user)),
+                rotated.getRefreshToken(),
                 jwtService.getAccessTokenExpirationSeconds()
         );
+        return new RefreshResult(user.getId(), tokens);
     }
 
+    /**
+     * Sign out one device when its refresh token is given, otherwise every device.
+     * The access token used for the call stops working immediately in both cases.
+     */
     @Transactional
-    public void logout(Long userId) {
-        userRepository.clearRefreshToken(userId);
+    public void logout(AuthenticatedUser user, String refreshToken) {
+        Long userId = user.getId();
+        accessTokenRevocationList.revoke(user.getTokenId(), user.getTokenExpiresAt());
+
+        // A signed-out user must not be able to pick up a pair from the grace window
+        recentRotations.invalidateIf(result -> result.getUserId().equals(userId));
+
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revoke(userId, refreshToken);
+            return;
+        }
+
+        refreshTokenService.revokeAll(userId);
+        tokenVersionRegistry.revokeAll(userId);
+        userDetailsService.evictUser(userId);
     }
 
-    @Transactional
-    public void cleanupExpiredTokens() {
-        userRepository.clearExpiredRefreshTokens(LocalDateTime.now());
+    public long cleanupExpiredTokens() {
+        return refreshTokenSweeper.sweep();
+    }
+
+    private static class RefreshResult {
+        private final Long userId;
+        private final TokenResponse tokens;
+
+        private RefreshResult(Long userId, TokenResponse tokens) {
+            this.userId = userId;
+            this.tokens = tokens;
+        }
+
+        public Long getUserId() { return userId; }
+
+        public TokenResponse getTokens() { return tokens; }
     }
 }
\ No newline at end of file
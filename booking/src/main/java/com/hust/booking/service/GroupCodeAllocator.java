@@ -0,0 +1,179 @@
+package com.hust.booking.service;
+
+import com.hust.booking.entity.GroupCodeSequence;
+import com.hust.booking.repository.GroupCodeSequenceRepository;
+import com.hust.booking.repository.GroupRepository;
+import com.hust.booking.util.GroupCodePermutation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hands out unique group codes without probing the database per group.
+ *
+ * Nodes reserve blocks of sequence numbers from group_code_sequence (hi/lo), so no two
+ * nodes ever draw the same number, and each number maps to a distinct code through
+ * {@link GroupCodePermutation}. The only per-block query filters out codes that already
+ * exist (random codes issued before this allocator, or codes from a previous key).
+ *
+ * Blocks are reserved on a background thread once fewer than half a block of codes is left,
+ * so callers rarely wait. When they do, they wait without holding the monitor, and callers
+ * must not hold a pooled connection either (see {@link GroupService#createGroup}): the
+ * reservation needs a connection of its own.
+ */
+@Service
+public class GroupCodeAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCodeAllocator.class);
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    @Autowired
+    private GroupCodeSequenceRepository sequenceRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.groups.code.key}")
+    private String key;
+
+    @Value("${app.groups.code.block-size:1000}")
+    private int blockSize;
+
+    private GroupCodePermutation permutation;
+    private TransactionTemplate reserveTransaction;
+    private ExecutorService reserver;
+
+    // All guarded by this. Codes still free to hand out, and the first sequence number of
+    // reserved blocks that have not been turned into codes yet
+    private final ArrayDeque<String> available = new ArrayDeque<>();
+    private final ArrayDeque<Long> reservedBlocks = new ArrayDeque<>();
+    private CompletableFuture<Long> reservation;
+
+    @PostConstruct
+    void init() {
+        permutation = new GroupCodePermutation(key);
+        // Own transaction so a block is never returned to the pool by an outer rollback
+        reserveTransaction = new TransactionTemplate(transactionManager);
+        reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reserver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "group-code-reserver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reserver.shutdownNow();
+    }
+
+    public String nextCode() {
+        while (true) {
+            Long block;
+            CompletableFuture<Long> pending;
+            synchronized (this) {
+                String code = available.poll();
+                if (available.size() < blockSize / 2 && reservedBlocks.isEmpty()
+                        && (reservation == null || reservation.isDone())) {
+                    reservation = CompletableFuture.supplyAsync(this::reserveBlock, reserver)
+                            .whenComplete(this::onReserved);
+                }
+                if (code != null) {
+                    return code;
+                }
+                block = reservedBlocks.poll();
+                pending = reservation;
+            }
+
+            if (block != null) {
+                List<String> codes = unusedCodes(block);
+                synchronized (this) {
+                    available.addAll(codes);
+                }
+            } else {
+                await(pending);
+            }
+        }
+    }
+
+    private synchronized void onReserved(Long start, Throwable error) {
+        if (error == null) {
+            reservedBlocks.add(start);
+        } else {
+            log.warn("Could not reserve a block of group codes", error);
+        }
+    }
+
+    private static void await(CompletableFuture<Long> pending) {
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private List<String> unusedCodes(long start) {
+        long end = Math.min(start + blockSize, GroupCodePermutation.SPACE);
+        if (start >= end) {
+            throw new IllegalStateException("Group code space exhausted");
+        }
+
+        List<String> codes = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            codes.add(permutation.encode(sequence));
+        }
+        Set<String> taken = new HashSet<>(groupRepository.findExistingCodes(codes));
+        if (taken.isEmpty()) {
+            return codes;
+        }
+        log.info("Skipping {} group codes already in use from block starting at {}", taken.size(), start);
+        codes.removeIf(taken::contains);
+        return codes;
+    }
+
+    // Advances the shared high-water mark under a row lock and returns the first number of the block
+    private long reserveBlock() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return reserveTransaction.execute(status -> {
+                    GroupCodeSequence sequence = sequenceRepository
+                            .findByIdForUpdate(GroupCodeSequence.SINGLETON_ID)
+                            .orElseGet(() -> new GroupCodeSequence(GroupCodeSequence.SINGLETON_ID, 0));
+                    long start = sequence.getNextValue();
+                    sequence.setNextValue(start + blockSize);
+                    sequenceRepository.saveAndFlush(sequence);
+                    return start;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the sequence row first; its lock is usable now
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
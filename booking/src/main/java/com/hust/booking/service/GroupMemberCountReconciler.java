@@ -0,0 +1,109 @@
+package com.hust.booking.service;
+
+import com.hust.booking.repository.GroupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares groups.accepted_member_count with group_members in primary-key ranges
+ * and recomputes the counter for any group that has drifted (manual SQL, rows
+ * removed outside GroupService, groups created before the column existed).
+ */
+@Service
+public class GroupMemberCountReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupMemberCountReconciler.class);
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.groups.member-count-reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.groups.member-count-reconciler.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.groups.member-count-reconciler.pause-ms:50}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter repaired;
+
+    @PostConstruct
+    void initMetrics() {
+        repaired = Counter.builder("app.groups.member_count.repaired")
+                .description("Groups whose accepted member counter was recomputed after drift")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.groups.member-count-reconciler.interval-ms:3600000}",
+            initialDelayString = "${app.groups.member-count-reconciler.initial-delay-ms:30000}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Run one full pass and return the number of groups repaired.
+     * Returns 0 immediately if another pass is already running.
+     */
+    public int reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int fixed = 0;
+        try {
+            Long minId = groupRepository.findMinId();
+            Long maxId = groupRepository.findMaxId();
+            if (minId == null || maxId == null) {
+                return 0;
+            }
+
+            for (long fromId = minId; fromId <= maxId; fromId += batchSize) {
+                List<Object[]> drifted = groupRepository.findMemberCountDrift(fromId, fromId + batchSize);
+                for (Object[] row : drifted) {
+                    Long groupId = (Long) row[0];
+                    log.warn("Group {} member count drifted: stored {}, actual {}", groupId, row[1], row[2]);
+                    fixed += groupRepository.recomputeAcceptedMemberCount(groupId);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                pause();
+            }
+            repaired.increment(fixed);
+            return fixed;
+        } finally {
+            running.set(false);
+            if (fixed > 0) {
+                log.info("Repaired member counts for {} groups", fixed);
+            }
+        }
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hust.booking.service;
+
+import com.hust.booking.enums.MemberRole;
+import com.hust.booking.enums.MemberStatus;
+import com.hust.booking.repository.GroupMemberRepository;
+import com.hust.booking.util.LocalCache;
+import com.hust.booking.util.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user map of groupId -> membership, used for group authorization checks.
+ * The whole map is loaded in one query on first use and dropped after any commit that
+ * changes one of the user's memberships. Other nodes see such changes within the TTL.
+ */
+@Component
+public class GroupMembershipCache {
+
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.groups.membership-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.groups.membership-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.groups.membership-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private LocalCache<Long, Map<Long, Membership>> cache;
+
+    @PostConstruct
+    void initCache() {
+        cache = new LocalCache<Long, Map<Long, Membership>>(maxSize, Duration.ofSeconds(ttlSeconds))
+                .bindTo(meterRegistry, "group_memberships");
+    }
+
+    /**
+     * The user's membership in the group (any status), or null if they have none.
+     */
+    public Membership find(Long userId, Long groupId) {
+        Map<Long, Membership> memberships = enabled ? cache.get(userId, this::load) : load(userId);
+        return memberships.get(groupId);
+    }
+
+    public void evict(Long userId) {
+        TransactionHooks.afterCommit(() -> cache.invalidate(userId));
+    }
+
+    public void evictAll(Collection<Long> userIds) {
+        TransactionHooks.afterCommit(() -> userIds.forEach(cache::invalidate));
+    }
+
+    private Map<Long, Membership> load(Long userId) {
+        Map<Long, Membership> memberships = new HashMap<>();
+        for (Object[] row : groupMemberRepository.findMembershipSummariesByUserId(userId)) {
+            memberships.put((Long) row[0], new Membership((MemberRole) row[1], (MemberStatus) row[2]));
+        }
+        return Collections.unmodifiableMap(memberships);
+    }
+
+    public static final class Membership {
+
+        private final MemberRole role;
+        private final MemberStatus status;
+
+        Membership(MemberRole role, MemberStatus status) {
+            this.role = role;
+            this.status = status;
+        }
+
+        public MemberRole getRole() { return role; }
+
+        public MemberStatus getStatus() { return status; }
+    }
+}
@@ -0,0 +1,107 @@
+package com.hust.booking.service;
+
+import com.hust.booking.repository.GroupMemberRepository;
+import com.hust.booking.repository.GroupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes a group's memberships with bulk DELETEs of at most chunk-size rows, then the group row.
+ *
+ * Small groups are purged inline by GroupService#deleteGroup. Large ones are only marked
+ * deleted there and purged here in the background, one chunk per transaction, so neither
+ * the owner's request nor the cleanup holds locks on tens of thousands of rows at once.
+ */
+@Service
+public class GroupPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupPurger.class);
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+
+    @Autowired
+    private GroupMembershipCache membershipCache;
+
+    @Value("${app.groups.deletion.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.groups.deletion.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${app.groups.deletion.groups-per-run:10}")
+    private int groupsPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${app.groups.deletion.purge-interval-ms:60000}",
+            initialDelayString = "${app.groups.deletion.purge-interval-ms:60000}")
+    public void purgeDeletedGroups() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Long groupId : groupRepository.findDeletedGroupIds(Limit.of(groupsPerRun))) {
+                long removed = purge(groupId, true);
+                log.info("Purged deleted group {} ({} memberships)", groupId, removed);
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Delete the group's memberships chunk by chunk, then the group itself, dropping the cached
+     * memberships of each chunk's users once that chunk is gone.
+     * Inside a caller's transaction every chunk joins it; otherwise each chunk commits on its own.
+     */
+    public long purge(Long groupId) {
+        return purge(groupId, false);
+    }
+
+    private long purge(Long groupId, boolean pauseBetweenChunks) {
+        long removed = 0;
+        List<Object[]> rows;
+        while (!(rows = groupMemberRepository.findIdsAndUserIdsByGroupId(groupId, Limit.of(chunkSize))).isEmpty()) {
+            List<Long> ids = new ArrayList<>(rows.size());
+            List<Long> userIds = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                ids.add((Long) row[0]);
+                userIds.add((Long) row[1]);
+            }
+            removed += groupMemberRepository.deleteByIds(ids);
+            membershipCache.evictAll(userIds);
+            if (pauseBetweenChunks) {
+                pause();
+            }
+        }
+        groupRepository.deleteGroupRow(groupId);
+        return removed;
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,24 +3,44 @@ package com.hust.booking.service;
 import com.hust.booking.dto.*;
 import com.hust.booking.entity.Group;
 import com.hust.booking.entity.GroupMember;
-import com.hust.booking.entity.User;
 import com.hust.booking.enums.MemberRole;
 import com.hust.booking.enums.MemberStatus;
 import com.hust.booking.exception.GroupNotFoundException;
 import com.hust.booking.exception.UserAlreadyInGroupException;
 import com.hust.booking.exception.UserNotInGroupException;
 import com.hust.booking.exception.UnauthorizedGroupActionException;
+import com.hust.booking.repository.GroupMemberBatchRepository;
 import com.hust.booking.repository.GroupRepository;
 import com.hust.booking.repository.GroupMemberRepository;
 import com.hust.booking.repository.UserRepository;
+import com.hust.booking.security.AuthenticatedUser;
+import com.hust.booking.util.GroupCodePermutation;
+import com.hust.booking.util.KeysetCursor;
+import com.hust.booking.util.LocalCache;
+import com.hust.booking.util.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.security.SecureRandom;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class GroupService {
@@ -34,42 +54,89 @@ public class GroupService {
     @Autowired
     private UserRepository userRepository;
 
-    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final int CODE_LENGTH = 6;
-    private final SecureRandom random = new SecureRandom();
+    @Autowired
+    private GroupCodeAllocator groupCodeAllocator;
 
-    @Transactional
+    @Autowired
+    private GroupMembershipCache membershipCache;
+
+    @Autowired
+    private GroupPurger groupPurger;
+
+    @Autowired
+    private GroupMemberBatchRepository groupMemberBatchRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Groups with more memberships (any status) than this are deleted asynchronously
+    @Value("${app.groups.deletion.async-threshold:1000}")
+    private int asyncDeleteThreshold;
+
+    @Value("${app.groups.preview-cache.enabled:true}")
+    private boolean previewCacheEnabled;
+
+    @Value("${app.groups.preview-cache.max-size:10000}")
+    private int previewCacheMaxSize;
+
+    @Value("${app.groups.preview-cache.ttl-seconds:30}")
+    private long previewTtlSeconds;
+
+    @Value("${app.groups.preview-cache.negative-ttl-seconds:5}")
+    private long negativeTtlSeconds;
+
+    // code -> preview, or empty for codes that did not exist when looked up
+    private LocalCache<String, Optional<GroupResponse>> previewCache;
+    private Duration previewTtl;
+    private Duration negativeTtl;
+    private TransactionTemplate writeTransaction;
+
+    @PostConstruct
+    void initPreviewCache() {
+        previewTtl = Duration.ofSeconds(previewTtlSeconds);
+        negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+        previewCache = new LocalCache<String, Optional<GroupResponse>>(previewCacheMaxSize, previewTtl)
+                .bindTo(meterRegistry, "group_previews");
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The code is drawn before the transaction opens: topping up the allocator takes a
+     * connection of its own, which must never be awaited while this request holds one.
+     */
     public GroupResponse createGroup(CreateGroupRequest request, Long ownerId) {
-        // Generate unique group code
-        String code = generateUniqueGroupCode();
+        String code = groupCodeAllocator.nextCode();
+        return writeTransaction.execute(status -> insertGroup(code, request, ownerId));
+    }
 
-        // Create new group
+    private GroupResponse insertGroup(String code, CreateGroupRequest request, Long ownerId) {
+        // Create new group; the owner is its first accepted member
         Group group = new Group(code, request.getName());
+        group.setAcceptedMemberCount(1);
         Group savedGroup = groupRepository.save(group);
 
         // Add creator as owner
         GroupMember owner = new GroupMember(ownerId, savedGroup.getId(), MemberStatus.ACCEPTED, MemberRole.OWNER);
         groupMemberRepository.save(owner);
+        membershipCache.evict(ownerId);
 
-        return new GroupResponse(savedGroup);
+        // A scan may have cached this code as unknown before it was allocated
+        evictPreview(code);
+
+        return new GroupResponse(savedGroup, savedGroup.getAcceptedMemberCount());
     }
 
     @Transactional
     public GroupMemberResponse joinGroupByCode(JoinGroupRequest request, Long userId) {
         // Find group by code
-        Group group = groupRepository.findByCode(request.getCode())
+        Group group = groupRepository.findByCodeAndDeletedAtIsNull(request.getCode())
                 .orElseThrow(() -> new GroupNotFoundException("Group not found with code: " + request.getCode()));
 
-        // Check if user is already in group
-        if (groupMemberRepository.existsByUserIdAndGroupId(userId, group.getId())) {
-            throw new UserAlreadyInGroupException("User is already a member of this group");
-        }
-
-        // Add user to group with pending status
-        GroupMember groupMember = new GroupMember(userId, group.getId(), MemberStatus.PENDING, MemberRole.MEMBER);
-        GroupMember savedMember = groupMemberRepository.save(groupMember);
-
-        return new GroupMemberResponse(savedMember);
+        // Add user to group with pending status; the unique key decides whether they were already in
+        return insertPendingMember(userId, group.getId(), group.getName(), null, null);
     }
 
     @Transactional
@@ -78,75 +145,171 @@ public class GroupService {
         validateUserGroupPermission(requesterId, groupId);
 
         // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
+        UserProfileResponse user = userRepository.findProfileByEmail(request.getEmail())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + request.getEmail()));
 
-        // Check if user is already in group
-        if (groupMemberRepository.existsByUserIdAndGroupId(user.getId(), groupId)) {
+        // Add user to group with pending status; the unique key decides whether they were already in
+        return insertPendingMember(user.getId(), groupId, null, user.getEmail(), user.getFullName());
+    }
+
+    // One INSERT against the unique key instead of an exists-check plus save, so concurrent joins cannot race
+    private GroupMemberResponse insertPendingMember(Long userId, Long groupId, String groupName,
+                                                    String userEmail, String userFullName) {
+        requireActiveGroup(groupId);
+        LocalDateTime now = LocalDateTime.now();
+        Long memberId = groupMemberBatchRepository.insertIfAbsent(userId, groupId,
+                MemberStatus.PENDING, MemberRole.MEMBER, now);
+        if (memberId == null) {
             throw new UserAlreadyInGroupException("User is already a member of this group");
         }
+        membershipCache.evict(userId);
+
+        return new GroupMemberResponse(memberId, userId, userEmail, userFullName, groupId, groupName,
+                MemberStatus.PENDING, MemberRole.MEMBER, now, now);
+    }
+
+    /**
+     * Invite many users by email at once: one IN lookup for the users, one locking read of their
+     * existing memberships, one batched insert and one read-back of the new ids. Results follow
+     * the request order, duplicates collapsed.
+     *
+     * The locking read also gap-locks the users who are not members yet, so a concurrent invite
+     * of the same users waits for this transaction (or fails as a deadlock victim) instead of
+     * inserting in between.
+     */
+    @Transactional
+    public List<BulkItemResult> addMembersToGroup(Long groupId, BulkAddMembersRequest request, Long requesterId) {
+        validateUserGroupPermission(requesterId, groupId);
+
+        Set<String> emails = new LinkedHashSet<>();
+        request.getEmails().forEach(email -> emails.add(email.trim()));
+
+        Map<String, Long> userIdsByEmail = new HashMap<>();
+        for (Object[] row : userRepository.findIdsByEmailIn(emails)) {
+            userIdsByEmail.put(((String) row[1]).toLowerCase(Locale.ROOT), (Long) row[0]);
+        }
 
-        // Add user to group with pending status
-        GroupMember groupMember = new GroupMember(user.getId(), groupId, MemberStatus.PENDING, MemberRole.MEMBER);
-        GroupMember savedMember = groupMemberRepository.save(groupMember);
+        requireActiveGroup(groupId);
+        Map<Long, Long> existing = new HashMap<>();
+        if (!userIdsByEmail.isEmpty()) {
+            for (Object[] row : groupMemberRepository.findMemberIdsByGroupIdAndUserIdInForUpdate(groupId,
+                    userIdsByEmail.values())) {
+                existing.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        List<Long> toInsert = userIdsByEmail.values().stream()
+                .filter(userId -> !existing.containsKey(userId))
+                .toList();
+
+        Map<Long, Long> added = Map.of();
+        if (!toInsert.isEmpty()) {
+            groupMemberBatchRepository.insertAll(groupId, toInsert, MemberStatus.PENDING, MemberRole.MEMBER);
+            added = findMemberIds(groupId, toInsert);
+            membershipCache.evictAll(toInsert);
+        }
 
-        return new GroupMemberResponse(savedMember);
+        List<BulkItemResult> results = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            Long userId = userIdsByEmail.get(email.toLowerCase(Locale.ROOT));
+            if (userId == null) {
+                results.add(new BulkItemResult(email, BulkItemResult.Outcome.USER_NOT_FOUND, null));
+            } else if (added.containsKey(userId)) {
+                results.add(new BulkItemResult(email, BulkItemResult.Outcome.ADDED, added.get(userId)));
+            } else {
+                results.add(new BulkItemResult(email, BulkItemResult.Outcome.ALREADY_MEMBER, existing.get(userId)));
+            }
+        }
+        return results;
     }
 
-    public List<GroupResponse> getUserGroups(Long userId) {
-        List<Group> groups = groupRepository.findGroupsByUserId(userId);
-        return groups.stream()
-                .map(group -> {
-                    Long memberCount = groupRepository.countAcceptedMembersByGroupId(group.getId());
-                    return new GroupResponse(group, memberCount);
-                })
-                .collect(Collectors.toList());
+    public List<GroupResponse> getUserGroups(Long userId, Pageable pageable) {
+        return groupRepository.findGroupSummariesByUserId(userId, pageable);
     }
 
-    public List<GroupResponse> getGroupsOwnedByUser(Long userId) {
-        List<Group> groups = groupRepository.findGroupsOwnedByUser(userId);
-        return groups.stream()
-                .map(group -> {
-                    Long memberCount = groupRepository.countAcceptedMembersByGroupId(group.getId());
-                    return new GroupResponse(group, memberCount);
-                })
-                .collect(Collectors.toList());
+    public List<GroupResponse> getGroupsOwnedByUser(Long userId, Pageable pageable) {
+        return groupRepository.findGroupSummariesOwnedByUser(userId, pageable);
     }
 
     public GroupResponse getGroupById(Long groupId, Long userId) {
         // Verify user has access to this group
         validateUserGroupPermission(userId, groupId);
 
-        Group group = groupRepository.findById(groupId)
+        Group group = groupRepository.findByIdAndDeletedAtIsNull(groupId)
                 .orElseThrow(() -> new GroupNotFoundException("Group not found with id: " + groupId));
 
-        Long memberCount = groupRepository.countAcceptedMembersByGroupId(groupId);
-        return new GroupResponse(group, memberCount);
+        return new GroupResponse(group, group.getAcceptedMemberCount());
     }
 
+    /**
+     * Preview behind invite links. Served from a near-cache; unknown codes are cached briefly
+     * too so scans of random codes do not reach the database on every request.
+     */
     public GroupResponse getGroupByCode(String code) {
-        Group group = groupRepository.findByCode(code)
-                .orElseThrow(() -> new GroupNotFoundException("Group not found with code: " + code));
+        String normalized = normalizeCode(code);
+        Optional<GroupResponse> preview = previewCacheEnabled
+                ? previewCache.get(normalized, this::loadPreview,
+                        loaded -> loaded.isPresent() ? previewTtl : negativeTtl)
+                : loadPreview(normalized);
+        return preview.orElseThrow(() -> new GroupNotFoundException("Group not found with code: " + code));
+    }
 
-        Long memberCount = groupRepository.countAcceptedMembersByGroupId(group.getId());
-        return new GroupResponse(group, memberCount);
+    private Optional<GroupResponse> loadPreview(String code) {
+        return groupRepository.findByCodeAndDeletedAtIsNull(code)
+                .map(group -> new GroupResponse(group, group.getAcceptedMemberCount()));
     }
 
-    public List<GroupMemberResponse> getGroupMembers(Long groupId, Long requesterId) {
+    // Anything that cannot be a group code is rejected before touching the cache or the database
+    private String normalizeCode(String code) {
+        String normalized = code != null ? code.trim().toUpperCase(Locale.ROOT) : "";
+        if (normalized.length() != GroupCodePermutation.CODE_LENGTH
+                || !normalized.chars().allMatch(c -> GroupCodePermutation.ALPHABET.indexOf(c) >= 0)) {
+            throw new GroupNotFoundException("Group not found with code: " + code);
+        }
+        return normalized;
+    }
+
+    private void evictPreview(String code) {
+        TransactionHooks.afterCommit(() -> previewCache.invalidate(code));
+    }
+
+    /**
+     * One page of members ordered by (joinedAt, id). Pass the previous page's nextCursor
+     * as {@code after} to continue; status is an optional filter.
+     */
+    public CursorPage<GroupMemberResponse> getGroupMembers(Long groupId, Long requesterId, MemberStatus status,
+                                                           String after, int limit) {
         // Verify requester has access to this group
         validateUserGroupPermission(requesterId, groupId);
 
-        List<GroupMember> members = groupMemberRepository.findByGroupId(groupId);
-        return members.stream()
-                .map(GroupMemberResponse::new)
-                .collect(Collectors.toList());
+        // Fetch one extra row to learn whether another page exists
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<GroupMemberResponse> members;
+        if (after == null || after.isBlank()) {
+            members = groupMemberRepository.findMemberPage(groupId, status, fetchLimit);
+        } else {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            members = groupMemberRepository.findMemberPageAfter(groupId, status,
+                    cursor.getValueAsDateTime(), cursor.getId(), fetchLimit);
+        }
+
+        if (members.size() <= limit) {
+            return new CursorPage<>(members, null);
+        }
+        List<GroupMemberResponse> page = members.subList(0, limit);
+        GroupMemberResponse last = page.get(limit - 1);
+        return new CursorPage<>(page, KeysetCursor.encode(last.getJoinedAt(), last.getId()));
     }
 
-    public List<GroupMemberResponse> getUserMemberships(Long userId) {
-        List<GroupMember> memberships = groupMemberRepository.findByUserId(userId);
-        return memberships.stream()
-                .map(GroupMemberResponse::new)
-                .collect(Collectors.toList());
+    public List<GroupMemberResponse> getUserMemberships(AuthenticatedUser user, MemberStatus status,
+                                                        MemberRole role, Pageable pageable) {
+        List<GroupMemberResponse> memberships =
+                groupMemberRepository.findMembershipsByUserId(user.getId(), status, role, pageable);
+        // Same user on every row: fill it from the principal instead of joining users
+        memberships.forEach(membership -> {
+            membership.setUserEmail(user.getEmail());
+            membership.setUserFullName(user.getFullName());
+        });
+        return memberships;
     }
 
     @Transactional
@@ -154,14 +317,61 @@ public class GroupService {
         // Verify requester is owner of the group
         validateUserIsGroupOwner(requesterId, groupId);
 
-        GroupMember member = groupMemberRepository.findById(memberId)
+        GroupMember member = groupMemberRepository.findByIdForUpdate(memberId)
                 .orElseThrow(() -> new UserNotInGroupException("Member not found"));
 
         if (!member.getGroupId().equals(groupId)) {
             throw new UserNotInGroupException("Member does not belong to this group");
         }
 
+        MemberStatus previous = member.getStatus();
+        if (previous == request.getStatus()) {
+            return;
+        }
         groupMemberRepository.updateMemberStatus(memberId, request.getStatus());
+        adjustAcceptedCount(groupId, previous, request.getStatus());
+        membershipCache.evict(member.getUserId());
+    }
+
+    /**
+     * Approve or reject many members with one conditional UPDATE. Rows are locked first so the
+     * accepted-member counter moves by exactly the transitions that happened.
+     */
+    @Transactional
+    public List<BulkItemResult> updateMemberStatuses(Long groupId, BulkUpdateMemberStatusRequest request,
+                                                     Long requesterId) {
+        validateUserIsGroupOwner(requesterId, groupId);
+
+        List<Long> memberIds = request.getMemberIds().stream().distinct().toList();
+        MemberStatus target = request.getStatus();
+        Map<Long, GroupMember> members = new HashMap<>();
+        groupMemberRepository.findByGroupIdAndIdInForUpdate(groupId, memberIds)
+                .forEach(member -> members.put(member.getId(), member));
+
+        long delta = 0;
+        List<Long> changedUserIds = new ArrayList<>();
+        List<BulkItemResult> results = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            GroupMember member = members.get(memberId);
+            if (member == null) {
+                results.add(new BulkItemResult(String.valueOf(memberId), BulkItemResult.Outcome.MEMBER_NOT_FOUND, null));
+            } else if (member.getStatus() == target) {
+                results.add(new BulkItemResult(String.valueOf(memberId), BulkItemResult.Outcome.UNCHANGED, memberId));
+            } else {
+                delta += acceptedDelta(member.getStatus(), target);
+                changedUserIds.add(member.getUserId());
+                results.add(new BulkItemResult(String.valueOf(memberId), BulkItemResult.Outcome.UPDATED, memberId));
+            }
+        }
+
+        if (!changedUserIds.isEmpty()) {
+            groupMemberRepository.updateStatusWhereDifferent(groupId, members.keySet(), target, LocalDateTime.now());
+            if (delta != 0) {
+                groupRepository.adjustAcceptedMemberCount(groupId, delta);
+            }
+            membershipCache.evictAll(changedUserIds);
+        }
+        return results;
     }
 
     @Transactional
@@ -171,11 +381,12 @@ public class GroupService {
             validateUserIsGroupOwner(requesterId, groupId);
         }
 
-        if (!groupMemberRepository.existsByUserIdAndGroupId(userId, groupId)) {
-            throw new UserNotInGroupException("User is not a member of this group");
-        }
+        GroupMember member = groupMemberRepository.findByUserIdAndGroupIdForUpdate(userId, groupId)
+                .orElseThrow(() -> new UserNotInGroupException("User is not a member of this group"));
 
         groupMemberRepository.removeUserFromGroup(userId, groupId);
+        adjustAcceptedCount(groupId, member.getStatus(), null);
+        membershipCache.evict(userId);
     }
 
     @Transactional
@@ -183,41 +394,67 @@ public class GroupService {
         // Verify requester is owner of the group
         validateUserIsGroupOwner(requesterId, groupId);
 
-        // Delete all group members first
-        groupMemberRepository.deleteAll(groupMemberRepository.findByGroupId(groupId));
+        Group group = groupRepository.findByIdAndDeletedAtIsNull(groupId)
+                .orElseThrow(() -> new GroupNotFoundException("Group not found with id: " + groupId));
 
-        // Delete the group
-        groupRepository.deleteById(groupId);
+        // Pending and rejected rows cost as much to delete as accepted ones; reading one past
+        // the threshold is enough to decide
+        int memberships = groupMemberRepository.findIdsByGroupId(groupId, Limit.of(asyncDeleteThreshold + 1)).size();
+        if (memberships > asyncDeleteThreshold) {
+            // Hide it now and let GroupPurger remove the memberships (and their cache entries) in the background
+            groupRepository.markDeleted(groupId, LocalDateTime.now());
+        } else {
+            groupPurger.purge(groupId);
+        }
+        evictPreview(group.getCode());
+    }
+
+    // Membership row is locked by the caller, so each transition moves the counter exactly once
+    private void adjustAcceptedCount(Long groupId, MemberStatus from, MemberStatus to) {
+        long delta = acceptedDelta(from, to);
+        if (delta != 0) {
+            groupRepository.adjustAcceptedMemberCount(groupId, delta);
+        }
     }
 
-    private String generateUniqueGroupCode() {
-        String code;
-        do {
-            code = generateRandomCode();
-        } while (groupRepository.existsByCode(code));
-        return code;
+    private static long acceptedDelta(MemberStatus from, MemberStatus to) {
+        return (to == MemberStatus.ACCEPTED ? 1 : 0) - (from == MemberStatus.ACCEPTED ? 1 : 0);
     }
 
-    private String generateRandomCode() {
-        StringBuilder code = new StringBuilder();
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            code.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+    // userId -> membership id for the given users in the group
+    private Map<Long, Long> findMemberIds(Long groupId, Collection<Long> userIds) {
+        Map<Long, Long> memberIds = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : groupMemberRepository.findMemberIdsByGroupIdAndUserIdIn(groupId, userIds)) {
+                memberIds.put((Long) row[0], (Long) row[1]);
+            }
+        }
+        return memberIds;
+    }
+
+    // Authorization checks read the cached membership map instead of querying per request
+    // Large groups are soft-deleted first and their members' cached memberships linger until the
+    // purge, so writes must check the group itself; the row lock keeps a delete from slipping in
+    private void requireActiveGroup(Long groupId) {
+        if (groupRepository.findActiveByIdForShare(groupId).isEmpty()) {
+            throw new GroupNotFoundException("Group not found with id: " + groupId);
         }
-        return code.toString();
     }
 
     private void validateUserGroupPermission(Long userId, Long groupId) {
-        if (!groupMemberRepository.existsByUserIdAndGroupId(userId, groupId)) {
+        if (membershipCache.find(userId, groupId) == null) {
             throw new UnauthorizedGroupActionException("User does not have permission to access this group");
         }
     }
 
     private void validateUserIsGroupOwner(Long userId, Long groupId) {
-        GroupMember member = groupMemberRepository.findByUserIdAndGroupId(userId, groupId)
-                .orElseThrow(() -> new UnauthorizedGroupActionException("User is not a member of this group"));
+        GroupMembershipCache.Membership member = membershipCache.find(userId, groupId);
+        if (member == null) {
+            throw new UnauthorizedGroupActionException("User is not a member of this group");
+        }
 
         if (member.getRole() != MemberRole.OWNER) {
             throw new UnauthorizedGroupActionException("Only group owners can perform this action");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package com.hust.booking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hust.booking.exception.IdempotencyKeyReusedException;
+import com.hust.booking.util.LocalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Replays the result of a write for retries that carry the same Idempotency-Key.
+ *
+ * Keys are scoped per user and operation and bound to a hash of the request payload; reusing
+ * a key for a different payload is rejected instead of replaying an unrelated result.
+ * Concurrent requests with one key run the write once and share its result; failures are not
+ * remembered, so a retry after an error executes again. Results live in a bounded in-process
+ * cache for the configured TTL.
+ */
+@Component
+public class IdempotentRequests {
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private LocalCache<String, Outcome> results;
+
+    @PostConstruct
+    void initCache() {
+        results = new LocalCache<String, Outcome>(maxEntries, Duration.ofSeconds(ttlSeconds))
+                .bindTo(meterRegistry, "idempotency_keys");
+    }
+
+    /**
+     * Run the action, or return the stored result of an earlier run with the same key and payload.
+     * Without a key the action simply runs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Long userId, String idempotencyKey, Object payload, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String payloadHash = hash(payload);
+        Outcome outcome = results.get(operation + ":" + userId + ":" + idempotencyKey,
+                key -> new Outcome(payloadHash, action.get()));
+        if (!outcome.payloadHash.equals(payloadHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request");
+        }
+        return (T) outcome.result;
+    }
+
+    // SHA-256 of the payload's JSON form
+    private String hash(Object payload) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request payload cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Outcome {
+
+        private final String payloadHash;
+        private final Object result;
+
+        Outcome(String payloadHash, Object result) {
+            this.payloadHash = payloadHash;
+            this.result = result;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.hust.booking.service;
 
+import com.hust.booking.security.JwtKeyRing;
+import com.hust.booking.security.UserSnapshot;
+import com.hust.booking.security.VerifiedToken;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -14,13 +17,15 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    @Autowired
+    private JwtKeyRing keyRing;
 
     @Value("${app.jwt.expiration-ms}")
     private long jwtExpirationMs;
@@ -28,14 +33,24 @@ public class JwtService {
     @Value("${app.jwt.refresh-expiration-ms}")
     private long refreshExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // Built once at startup; keys are resolved by kid through the pre-decoded key ring
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        jwtParser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
     }
 
-    public String generateAccessToken(UserDetails userDetails) {
+    public String generateAccessToken(UserSnapshot user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "access");
-        return createToken(claims, userDetails.getUsername(), jwtExpirationMs);
+        // Enough to rebuild the principal without a DB lookup (app.jwt.stateless-principal)
+        claims.put("uid", user.getId());
+        claims.put("name", user.getFullName());
+        claims.put("ver", user.getTokenVersion());
+        return createToken(claims, user.getUsername(), jwtExpirationMs);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
@@ -53,11 +68,13 @@ public class JwtService {
 
     private String createToken(Map<String, Object> claims, String subject, long expiration) {
         return Jwts.builder()
+                .header().keyId(keyRing.getActiveKid()).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(keyRing.getActiveSigningKey())
                 .compact();
     }
 
@@ -79,54 +96,46 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Parse and verify the token exactly once (signature and expiry).
+     * Returns empty for any malformed, tampered or expired token.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        try {
+            return Optional.of(new VerifiedToken(extractAllClaims(token)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     public Boolean isAccessToken(String token) {
-        try {
-            return "access".equals(extractTokenType(token));
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token).map(VerifiedToken::isAccessToken).orElse(false);
     }
 
     public Boolean isRefreshToken(String token) {
-        try {
-            return "refresh".equals(extractTokenType(token));
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token).map(VerifiedToken::isRefreshToken).orElse(false);
     }
 
     public Boolean validateAccessToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) &&
-                !isTokenExpired(token) &&
-                isAccessToken(token));
+        // The parser already rejects expired tokens, so one parse covers every check
+        return verify(token)
+                .filter(VerifiedToken::isAccessToken)
+                .map(verified -> verified.getSubject().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     public Boolean validateRefreshToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) &&
-                !isTokenExpired(token) &&
-                isRefreshToken(token));
+        return verify(token)
+                .filter(VerifiedToken::isRefreshToken)
+                .map(verified -> verified.getSubject().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     public Boolean isTokenValid(String token) {
-        try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parseSignedClaims(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
 
     public LocalDateTime getRefreshTokenExpiryDate() {
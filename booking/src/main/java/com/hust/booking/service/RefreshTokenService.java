@@ -0,0 +1,120 @@
+package com.hust.booking.service;
+
+import com.hust.booking.entity.RefreshToken;
+import com.hust.booking.exception.InvalidRefreshTokenException;
+import com.hust.booking.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+@Service
+public class RefreshTokenService {
+
+    private static final int MAX_DEVICE_INFO_LENGTH = 255;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    /**
+     * Open a new session for the user and return the raw token to hand to the client.
+     */
+    @Transactional
+    public String issue(Long userId, String deviceInfo) {
+        String token = jwtService.generateSecureRefreshToken();
+        refreshTokenRepository.save(new RefreshToken(
+                hash(token),
+                userId,
+                truncate(deviceInfo),
+                jwtService.getRefreshTokenExpiryDate()
+        ));
+        return token;
+    }
+
+    /**
+     * Replace the presented token with a fresh one on the same session row.
+     * Returns the session (with the new raw token) or throws if the token is unknown,
+     * expired or was rotated concurrently.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public RotatedToken rotate(String token) {
+        String tokenHash = hash(token);
+        RefreshToken session = refreshTokenRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (session.getExpiresAt().isBefore(now)) {
+            refreshTokenRepository.delete(session);
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+
+        String newToken = jwtService.generateSecureRefreshToken();
+        int updated = refreshTokenRepository.rotate(
+                session.getId(),
+                tokenHash,
+                hash(newToken),
+                jwtService.getRefreshTokenExpiryDate(),
+                now
+        );
+        if (updated == 0) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+
+        return new RotatedToken(session.getUserId(), newToken);
+    }
+
+    @Transactional
+    public void revoke(Long userId, String token) {
+        refreshTokenRepository.revoke(userId, hash(token));
+    }
+
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAll(userId);
+    }
+
+    public long countActiveSessions(Long userId) {
+        return refreshTokenRepository.countByUserIdAndExpiresAtAfter(userId, LocalDateTime.now());
+    }
+
+    /**
+     * SHA-256 hex of the raw token; always 64 characters.
+     */
+    public String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String truncate(String deviceInfo) {
+        if (deviceInfo == null || deviceInfo.length() <= MAX_DEVICE_INFO_LENGTH) {
+            return deviceInfo;
+        }
+        return deviceInfo.substring(0, MAX_DEVICE_INFO_LENGTH);
+    }
+
+    public static class RotatedToken {
+        private final Long userId;
+        private final String refreshToken;
+
+        public RotatedToken(Long userId, String refreshToken) {
+            this.userId = userId;
+            this.refreshToken = refreshToken;
+        }
+
+        public Long getUserId() { return userId; }
+
+        public String getRefreshToken() { return refreshToken; }
+    }
+}
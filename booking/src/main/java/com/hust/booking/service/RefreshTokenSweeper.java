@@ -0,0 +1,127 @@
+package com.hust.booking.service;
+
+import com.hust.booking.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes expired refresh tokens in small primary-key ranges, each in its own transaction,
+ * so cleanup never holds locks long enough to stall concurrent logins.
+ * A cycle that hits its runtime budget resumes from where it stopped on the next run.
+ */
+@Service
+public class RefreshTokenSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenSweeper.class);
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.refresh-token.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.refresh-token.sweeper.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.refresh-token.sweeper.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${app.refresh-token.sweeper.max-runtime-ms:10000}")
+    private long maxRuntimeMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Long resumeFromId;
+
+    private Counter rowsDeleted;
+    private Timer sweepTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        rowsDeleted = Counter.builder("app.refresh_tokens.swept")
+                .description("Expired refresh tokens deleted by the sweeper")
+                .register(meterRegistry);
+        sweepTimer = Timer.builder("app.refresh_tokens.sweep")
+                .description("Duration of one sweeper cycle")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.refresh-token.sweeper.interval-ms:300000}",
+            initialDelayString = "${app.refresh-token.sweeper.initial-delay-ms:60000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+    /**
+     * Run one bounded cleanup cycle and return the number of rows deleted.
+     * Returns 0 immediately if another cycle is already running.
+     */
+    public long sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(maxRuntimeMs);
+        long deleted = 0;
+        try {
+            Long minId = refreshTokenRepository.findMinId();
+            Long maxId = refreshTokenRepository.findMaxId();
+            if (minId == null || maxId == null) {
+                resumeFromId = null;
+                return 0;
+            }
+
+            long fromId = resumeFromId != null && resumeFromId > minId ? resumeFromId : minId;
+            LocalDateTime now = LocalDateTime.now();
+            while (fromId <= maxId) {
+                long toId = fromId + batchSize;
+                int batchDeleted = refreshTokenRepository.deleteExpiredInRange(fromId, toId, now);
+                deleted += batchDeleted;
+                rowsDeleted.increment(batchDeleted);
+                fromId = toId;
+
+                if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                pause();
+            }
+            resumeFromId = fromId <= maxId ? fromId : null;
+            return deleted;
+        } finally {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            running.set(false);
+            if (deleted > 0) {
+                log.info("Refresh token sweep deleted {} rows in {} ms", deleted,
+                        TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            }
+        }
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.hust.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.exception.ServiceBusyException;
+import com.hust.booking.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user profile to a response stream as NDJSON or CSV.
+ *
+ * Rows come from a forward-only streamed result set and are written as they are read, so memory
+ * use does not depend on the number of users. Rows are DTO projections, never managed entities,
+ * so the persistence context stays empty for the whole export.
+ *
+ * Every running export holds a pooled connection for its whole duration, so only a few may run
+ * at once; further requests are refused with a 503 before the response starts.
+ */
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+
+        public String getExtension() { return extension; }
+
+        public static Format parse(String value) {
+            try {
+                return Format.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String[] CSV_HEADER = {"id", "email", "phone", "fullName", "createdAt", "updatedAt", "enabled"};
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.users.export.flush-every:1000}")
+    private int flushEvery;
+
+    @Value("${app.users.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private TransactionTemplate readTransaction;
+    private ObjectWriter profileWriter;
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        // The streamed result set only lives as long as the transaction around it
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        profileWriter = objectMapper.writerFor(UserProfileResponse.class);
+        slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Take an export slot now, while a 503 can still be sent, and return the body that streams
+     * the export and gives the slot back.
+     */
+    public StreamingResponseBody startExport(Format format) {
+        if (!slots.tryAcquire()) {
+            throw new ServiceBusyException("Too many exports in progress, please retry later", RETRY_AFTER_SECONDS);
+        }
+        return out -> {
+            try {
+                export(format, out);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    public void export(Format format, OutputStream out) {
+        readTransaction.executeWithoutResult(status -> {
+            try (Stream<UserProfileResponse> profiles = userRepository.streamAllProfiles()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, (Object[]) CSV_HEADER);
+                }
+                // Flush the header right away so the client sees the download start
+                writer.flush();
+
+                long written = 0;
+                Iterator<UserProfileResponse> iterator = profiles.iterator();
+                while (iterator.hasNext()) {
+                    UserProfileResponse profile = iterator.next();
+                    if (format == Format.CSV) {
+                        writeCsvRow(writer, profile.getId(), profile.getEmail(), profile.getPhone(),
+                                profile.getFullName(), profile.getCreatedAt(), profile.getUpdatedAt(),
+                                profile.isEnabled());
+                    } else {
+                        writer.write(profileWriter.writeValueAsString(profile));
+                        writer.write('\n');
+                    }
+                    if (++written % flushEvery == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                // Usually the client went away; rolling back just ends the read
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,271 @@
+package com.hust.booking.service;
+
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.event.UserChangedEvent;
+import com.hust.booking.repository.UserRepository;
+import com.hust.booking.util.TrigramIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * User search by full name, email or phone, served from an in-memory {@link TrigramIndex}.
+ *
+ * The index is built from the users table once the application is ready and then kept current
+ * from {@link UserChangedEvent}s. A periodic pass re-reads only the rows whose updated_at moved
+ * since the previous one, which picks up registrations and edits made on other nodes; users
+ * deleted elsewhere stay searchable until the next full build (restart). Changes that arrive
+ * while a rebuild is running are queued and replayed onto the new index before it is swapped in.
+ * Until the first build finishes, searches fall back to a paginated LIKE query.
+ *
+ * The index costs roughly 630 MB of heap per million users; a rebuild holds the old and the new
+ * one at once, which is why only startup does a full build.
+ *
+ * Only the local part of an email is indexed: domains like gmail.com are shared by most users,
+ * so their trigrams would match nearly everyone and only make posting lists longer.
+ */
+@Service
+public class UserSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchService.class);
+
+    // Deepest result reachable by paging; bounds the ranking heap per query
+    private static final int MAX_RESULT_WINDOW = 10_000;
+    private static final Pattern EMAIL_DOMAIN = Pattern.compile("@\\S*");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.users.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.users.search.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    // Re-read this far behind the previous pass, for rows committed late or stamped by a lagging clock
+    @Value("${app.users.search.refresh-overlap-seconds:60}")
+    private long refreshOverlapSeconds;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private TrigramIndex index = new TrigramIndex();
+    private Map<Long, UserProfileResponse> profiles = new HashMap<>();
+    private List<UserChangedEvent> pendingDuringRebuild;
+    // updated_at up to which the index has read the users table
+    private LocalDateTime refreshedUpTo;
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("app.users.search_index_size", this, UserSearchService::indexedUsers).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Re-index users changed since the previous pass, in (updated_at, id) order.
+     */
+    @Scheduled(fixedDelayString = "${app.users.search.refresh-interval-ms:300000}",
+            initialDelayString = "${app.users.search.refresh-interval-ms:300000}")
+    public void refreshChanged() {
+        LocalDateTime after;
+        lock.readLock().lock();
+        try {
+            if (!enabled || !ready || pendingDuringRebuild != null) {
+                return;
+            }
+            after = refreshedUpTo.minusSeconds(refreshOverlapSeconds);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        LocalDateTime newest = after;
+        long afterId = 0;
+        int refreshed = 0;
+        List<UserProfileResponse> batch;
+        do {
+            batch = userRepository.findProfilesUpdatedAfter(after, afterId, Limit.of(rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (UserProfileResponse profile : batch) {
+                    put(index, profiles, profile);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            UserProfileResponse last = batch.get(batch.size() - 1);
+            after = last.getUpdatedAt();
+            afterId = last.getId();
+            newest = after;
+            refreshed += batch.size();
+        } while (batch.size() == rebuildBatchSize);
+
+        lock.writeLock().lock();
+        try {
+            if (newest.isAfter(refreshedUpTo)) {
+                refreshedUpTo = newest;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Refreshed {} changed users in the search index", refreshed);
+    }
+
+    /**
+     * Load every user in id order into a fresh index, then swap it in.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                return; // already rebuilding
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Everything committed before this instant is read below
+        LocalDateTime startedAt = LocalDateTime.now();
+        TrigramIndex freshIndex = new TrigramIndex();
+        Map<Long, UserProfileResponse> freshProfiles = new HashMap<>();
+        try {
+            long afterId = 0;
+            List<UserProfileResponse> batch;
+            do {
+                batch = userRepository.findProfilesAfter(afterId, Limit.of(rebuildBatchSize));
+                for (UserProfileResponse profile : batch) {
+                    put(freshIndex, freshProfiles, profile);
+                    afterId = profile.getId();
+                }
+            } while (batch.size() == rebuildBatchSize);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (UserChangedEvent event : pendingDuringRebuild) {
+                apply(freshIndex, freshProfiles, event);
+            }
+            pendingDuringRebuild = null;
+            index = freshIndex;
+            profiles = freshProfiles;
+            refreshedUpTo = startedAt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} users for search", freshProfiles.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(index, profiles, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked matches for every word of the query: name matches before email before phone,
+     * whole words before prefixes before substrings. Accents are ignored on both sides.
+     */
+    public List<UserProfileResponse> search(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        long offset = (long) page * size;
+        if (offset + size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Search results are limited to the first " + MAX_RESULT_WINDOW
+                    + " matches; refine the query instead of paging further");
+        }
+        if (!ready) {
+            return userRepository.findProfilesByFullNameContaining(query.trim(), PageRequest.of(page, size));
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Long> ids = index.search(withoutEmailDomain(query), (int) offset, size);
+            List<UserProfileResponse> results = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                results.add(profiles.get(id));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int indexedUsers() {
+        lock.readLock().lock();
+        try {
+            return profiles.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(TrigramIndex index, Map<Long, UserProfileResponse> profiles, UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            index.remove(event.getUserId());
+            profiles.remove(event.getUserId());
+        } else {
+            put(index, profiles, event.getProfile());
+        }
+    }
+
+    private static void put(TrigramIndex index, Map<Long, UserProfileResponse> profiles, UserProfileResponse profile) {
+        index.put(profile.getId(), profile.getFullName(), withoutEmailDomain(profile.getEmail()), profile.getPhone());
+        profiles.put(profile.getId(), profile);
+    }
+
+    // "an.nguyen@gmail.com" -> "an.nguyen"; applied to queries too, so pasting a full address still matches
+    private static String withoutEmailDomain(String text) {
+        return text == null ? null : EMAIL_DOMAIN.matcher(text).replaceAll("");
+    }
+}
@@ -1,16 +1,22 @@
 package com.hust.booking.service;
 
 import com.hust.booking.dto.ChangePasswordRequest;
+import com.hust.booking.dto.CursorPage;
 import com.hust.booking.dto.UpdateProfileRequest;
 import com.hust.booking.dto.UserProfileResponse;
 import com.hust.booking.dto.UserStatsResponse;
 import com.hust.booking.entity.User;
+import com.hust.booking.event.UserChangedEvent;
 import com.hust.booking.exception.PhoneAlreadyExistsException;
 import com.hust.booking.repository.UserRepository;
+import com.hust.booking.security.TokenVersionRegistry;
+import com.hust.booking.security.UserDetailsServiceImpl;
+import com.hust.booking.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,7 +25,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -30,58 +35,90 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    public List<UserProfileResponse> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(UserProfileResponse::new)
-                .collect(Collectors.toList());
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private UserStatsTracker userStatsTracker;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * One page of the user directory. Without {@code page} this seeks past {@code after}
+     * (null for the first page), so every page costs the same. With {@code page} it jumps
+     * by offset, still without counting the table. Either way the result carries a cursor
+     * for continuing by keyset.
+     */
+    public CursorPage<UserProfileResponse> getUserDirectory(String sortBy, String after, Integer page, int size) {
+        DirectorySort sort = DirectorySort.parse(sortBy);
+        List<UserProfileResponse> users;
+        boolean hasMore;
+        if (page != null) {
+            Slice<UserProfileResponse> slice = userRepository.findProfileSlice(PageRequest.of(page, size, sort.sort));
+            users = slice.getContent();
+            hasMore = slice.hasNext();
+        } else {
+            List<UserProfileResponse> fetched = fetchAfter(sort, after, Limit.of(size + 1));
+            hasMore = fetched.size() > size;
+            users = hasMore ? fetched.subList(0, size) : fetched;
+        }
+
+        if (!hasMore || users.isEmpty()) {
+            return new CursorPage<>(users, null);
+        }
+        UserProfileResponse last = users.get(users.size() - 1);
+        return new CursorPage<>(users, KeysetCursor.encode(sort.cursorValue(last), last.getId()));
     }
 
-    public Page<UserProfileResponse> getAllUsersWithPagination(int page, int size, String sortBy) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy).descending());
-        return userRepository.findAll(pageable)
-                .map(UserProfileResponse::new);
+    private List<UserProfileResponse> fetchAfter(DirectorySort sort, String after, Limit limit) {
+        KeysetCursor cursor = after != null ? KeysetCursor.decode(after) : null;
+        return switch (sort) {
+            case CREATED_AT -> cursor == null
+                    ? userRepository.findProfilesByCreatedAt(limit)
+                    : userRepository.findProfilesByCreatedAtAfter(cursor.getValueAsDateTime(), cursor.getId(), limit);
+            case FULL_NAME -> cursor == null
+                    ? userRepository.findProfilesByFullName(limit)
+                    : userRepository.findProfilesByFullNameAfter(cursor.getValue(), cursor.getId(), limit);
+            case ID -> userRepository.findProfilesAfter(cursor == null ? 0L : cursor.getId(), limit);
+        };
     }
 
     public UserProfileResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
+        return userRepository.findProfileById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
-        return new UserProfileResponse(user);
     }
 
     public UserProfileResponse getUserByEmail(String email) {
-        User user = userRepository.findByEmail(email)
+        return userRepository.findProfileByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-        return new UserProfileResponse(user);
     }
 
     public UserProfileResponse getUserByPhone(String phone) {
-        User user = userRepository.findByPhone(phone)
+        return userRepository.findProfileByPhone(phone)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with phone: " + phone));
-        return new UserProfileResponse(user);
     }
 
-    public List<UserProfileResponse> searchUsersByName(String name) {
-        return userRepository.findByFullNameContainingIgnoreCase(name)
-                .stream()
-                .map(UserProfileResponse::new)
-                .collect(Collectors.toList());
+    public List<UserProfileResponse> searchUsersByName(String name, int page, int size) {
+        return userSearchService.search(name, page, size);
     }
 
     public UserStatsResponse getUserStats() {
-        Long totalUsers = userRepository.countTotalUsers();
-        LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
-        List<UserProfileResponse> recentUsers = userRepository.findRecentlyRegisteredUsers(oneWeekAgo)
-                .stream()
-                .map(UserProfileResponse::new)
-                .collect(Collectors.toList());
-
-        return new UserStatsResponse(totalUsers, recentUsers);
+        return userStatsTracker.getStats();
     }
 
     @Transactional
     public UserProfileResponse updateUserProfile(Long userId, UpdateProfileRequest request) {
-        User user = userRepository.findById(userId)
+        UserProfileResponse user = userRepository.findProfileById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
 
         // Check if the new phone number is already taken by another user
@@ -96,12 +133,13 @@ public class UserService {
                 request.getPhone(),
                 LocalDateTime.now()
         );
+        userDetailsService.evict(user.getEmail());
 
-        // Fetch updated user
-        User updatedUser = userRepository.findById(userId)
+        // Fetch updated user; a query, so it sees the bulk update rather than a cached entity
+        UserProfileResponse profile = userRepository.findProfileById(userId)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found after update"));
-
-        return new UserProfileResponse(updatedUser);
+        eventPublisher.publishEvent(UserChangedEvent.updated(profile));
+        return profile;
     }
 
     @Transactional
@@ -118,14 +156,54 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+
+        // Sessions opened with the old password must not outlive it
+        tokenVersionRegistry.revokeAll(userId);
+        userDetailsService.evict(user.getEmail());
     }
 
     @Transactional
     public void deleteUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UsernameNotFoundException("User not found with id: " + userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        userRepository.delete(user);
+        // refresh_tokens has no foreign key to users, so the sessions go in the same transaction
+        refreshTokenService.revokeAll(userId);
+        tokenVersionRegistry.revokeDeletedUser(userId);
+        userDetailsService.evictUser(userId);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(new UserProfileResponse(user)));
+    }
+
+    // Sort keys the directory accepts; each is backed by an index ending in id
+    private enum DirectorySort {
+        CREATED_AT("createdAt", Sort.by(Sort.Direction.DESC, "createdAt", "id")),
+        FULL_NAME("fullName", Sort.by(Sort.Direction.ASC, "fullName", "id")),
+        ID("id", Sort.by(Sort.Direction.ASC, "id"));
+
+        private final String key;
+        private final Sort sort;
+
+        DirectorySort(String key, Sort sort) {
+            this.key = key;
+            this.sort = sort;
+        }
+
+        static DirectorySort parse(String key) {
+            for (DirectorySort candidate : values()) {
+                if (candidate.key.equals(key)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sortBy: " + key + " (use createdAt, fullName or id)");
+        }
+
+        Object cursorValue(UserProfileResponse user) {
+            return switch (this) {
+                case CREATED_AT -> user.getCreatedAt();
+                case FULL_NAME -> user.getFullName();
+                case ID -> "";
+            };
         }
-        userRepository.deleteById(userId);
     }
 
     public boolean existsByEmail(String email) {
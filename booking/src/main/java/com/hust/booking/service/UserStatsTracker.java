@@ -0,0 +1,210 @@
+package com.hust.booking.service;
+
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.dto.UserStatsResponse;
+import com.hust.booking.event.UserChangedEvent;
+import com.hust.booking.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory user statistics for /api/users/stats: total users, registrations per day over the
+ * last few days and a bounded sample of the newest users.
+ *
+ * Seeded from the database at startup, then kept current from {@link UserChangedEvent}s.
+ * A periodic pass re-reads the same figures from the database and replaces the in-memory ones,
+ * which repairs drift from changes made outside the application. Events that arrive while a
+ * pass is reading are queued and replayed onto the figures it read, as UserSearchService does
+ * for its rebuilds; an event whose transaction committed just before the read may then count
+ * twice until the next pass.
+ */
+@Service
+public class UserStatsTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(UserStatsTracker.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.users.stats.window-days:7}")
+    private int windowDays;
+
+    @Value("${app.users.stats.recent-sample-size:20}")
+    private int recentSampleSize;
+
+    // Serializes passes; the figures themselves are guarded by this
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    // All guarded by this
+    private boolean seeded;
+    private long totalUsers;
+    private final TreeMap<LocalDate, Long> registrationsPerDay = new TreeMap<>();
+    // Newest first, at most recentSampleSize entries
+    private final List<UserProfileResponse> recentUsers = new ArrayList<>();
+    // Non-null while a pass is reading the database
+    private List<UserChangedEvent> pendingDuringReconcile;
+
+    private Counter corrections;
+
+    @PostConstruct
+    void initMetrics() {
+        corrections = Counter.builder("app.users.stats.corrected")
+                .description("Reconciliation passes that found the in-memory user statistics out of date")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Reload the counters from the database and swap them in.
+     */
+    @Scheduled(fixedDelayString = "${app.users.stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${app.users.stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            synchronized (this) {
+                pendingDuringReconcile = new ArrayList<>();
+            }
+
+            LocalDate firstDay = LocalDate.now().minusDays(windowDays - 1L);
+            long total;
+            TreeMap<LocalDate, Long> perDay = new TreeMap<>();
+            List<UserProfileResponse> newest;
+            try {
+                total = userRepository.countTotalUsers();
+                for (Object[] row : userRepository.countRegistrationsPerDaySince(firstDay.atStartOfDay())) {
+                    perDay.put((LocalDate) row[0], (Long) row[1]);
+                }
+                newest = userRepository.findProfilesByCreatedAt(Limit.of(recentSampleSize));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingDuringReconcile = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                long previousTotal = totalUsers;
+                Map<LocalDate, Long> previousBuckets = new TreeMap<>(currentBuckets(firstDay));
+                boolean wasSeeded = seeded;
+
+                totalUsers = total;
+                registrationsPerDay.clear();
+                registrationsPerDay.putAll(perDay);
+                recentUsers.clear();
+                recentUsers.addAll(newest);
+                seeded = true;
+                for (UserChangedEvent event : pendingDuringReconcile) {
+                    apply(event);
+                }
+                pendingDuringReconcile = null;
+
+                if (wasSeeded && (previousTotal != totalUsers || !previousBuckets.equals(currentBuckets(firstDay)))) {
+                    corrections.increment();
+                    log.info("User statistics drifted (total {} in memory, {} in database); reloaded",
+                            previousTotal, totalUsers);
+                }
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        if (pendingDuringReconcile != null) {
+            pendingDuringReconcile.add(event);
+        }
+        if (seeded) {
+            apply(event);
+        }
+    }
+
+    // Caller holds this
+    private void apply(UserChangedEvent event) {
+        UserProfileResponse profile = event.getProfile();
+        switch (event.getType()) {
+            case REGISTERED -> {
+                totalUsers++;
+                if (profile.getCreatedAt() != null) {
+                    registrationsPerDay.merge(profile.getCreatedAt().toLocalDate(), 1L, Long::sum);
+                }
+                recentUsers.add(0, profile);
+                if (recentUsers.size() > recentSampleSize) {
+                    recentUsers.remove(recentUsers.size() - 1);
+                }
+            }
+            case UPDATED -> recentUsers.replaceAll(user -> user.getId().equals(profile.getId()) ? profile : user);
+            case DELETED -> {
+                totalUsers--;
+                if (profile.getCreatedAt() != null) {
+                    registrationsPerDay.computeIfPresent(profile.getCreatedAt().toLocalDate(),
+                            (day, count) -> count > 1 ? count - 1 : null);
+                }
+                recentUsers.removeIf(user -> user.getId().equals(profile.getId()));
+            }
+        }
+    }
+
+    /**
+     * Current figures; never touches the database once seeded.
+     */
+    public UserStatsResponse getStats() {
+        if (!isSeeded()) {
+            reconcile();
+        }
+        LocalDate firstDay = LocalDate.now().minusDays(windowDays - 1L);
+        LocalDateTime windowStart = firstDay.atStartOfDay();
+        synchronized (this) {
+            registrationsPerDay.headMap(firstDay).clear();
+
+            Map<LocalDate, Long> perDay = new LinkedHashMap<>();
+            long recentRegistrations = 0;
+            for (LocalDate day = firstDay; !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+                long count = registrationsPerDay.getOrDefault(day, 0L);
+                perDay.put(day, count);
+                recentRegistrations += count;
+            }
+            List<UserProfileResponse> sample = recentUsers.stream()
+                    .filter(user -> user.getCreatedAt() != null && !user.getCreatedAt().isBefore(windowStart))
+                    .toList();
+            return new UserStatsResponse(totalUsers, sample, recentRegistrations, perDay);
+        }
+    }
+
+    private synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    private Map<LocalDate, Long> currentBuckets(LocalDate firstDay) {
+        return registrationsPerDay.tailMap(firstDay, true);
+    }
+}
@@ -0,0 +1,91 @@
+package com.hust.booking.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keyed bijection from sequence numbers in [0, 36^6) to 6-character group codes.
+ * Distinct inputs always give distinct codes, so codes drawn from a sequence never collide,
+ * while the key makes consecutive numbers map to codes that look unrelated.
+ *
+ * A balanced Feistel network permutes 32-bit values; cycle-walking re-applies it until the
+ * result falls inside the 36^6 code space (under two rounds on average, since 36^6 > 2^31).
+ */
+public final class GroupCodePermutation {
+
+    public static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    public static final int CODE_LENGTH = 6;
+    public static final long SPACE = pow(ALPHABET.length(), CODE_LENGTH);
+
+    private final int[] roundKeys = new int[8];
+
+    public GroupCodePermutation(String key) {
+        ByteBuffer digest = ByteBuffer.wrap(sha256(key));
+        for (int i = 0; i < roundKeys.length; i++) {
+            roundKeys[i] = digest.getInt();
+        }
+    }
+
+    public String encode(long sequence) {
+        return toCode(permute(sequence));
+    }
+
+    long permute(long sequence) {
+        if (sequence < 0 || sequence >= SPACE) {
+            throw new IllegalArgumentException("Sequence out of group code space: " + sequence);
+        }
+        long value = sequence;
+        do {
+            value = Integer.toUnsignedLong(feistel((int) value));
+        } while (value >= SPACE);
+        return value;
+    }
+
+    private int feistel(int value) {
+        int left = value >>> 16;
+        int right = value & 0xFFFF;
+        for (int roundKey : roundKeys) {
+            int next = left ^ (mix(right ^ roundKey) & 0xFFFF);
+            left = right;
+            right = next;
+        }
+        return (left << 16) | right;
+    }
+
+    // murmur3 fmix32
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static String toCode(long value) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (value % ALPHABET.length()));
+            value /= ALPHABET.length();
+        }
+        return new String(code);
+    }
+
+    private static byte[] sha256(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hust.booking.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-paginated listing: the last row's sort value plus its id
+ * as tie-breaker. Clients get it back as a URL-safe string and must not interpret it.
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final String value;
+    private final long id;
+
+    private KeysetCursor(String value, long id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public static String encode(Object value, long id) {
+        String raw = id + String.valueOf(SEPARATOR) + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode}
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            // also covers bad Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String getValue() { return value; }
+
+    public long getId() { return id; }
+
+    public LocalDateTime getValueAsDateTime() {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.hust.booking.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small bounded, expiring in-process cache.
+ *
+ * Concurrent misses for the same key are coalesced into a single load, and a load that
+ * races with an invalidation is never stored. When full, an entry out of a small sample is
+ * evicted, expired ones first, then the oldest. A full sweep of expired entries runs at most
+ * once per quarter of maxSize insertions, so inserts at capacity stay O(1) amortized.
+ * Null values are never cached.
+ */
+public class LocalCache<K, V> {
+
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Bumped by every invalidation so in-flight loads know their result may be stale
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    // Inserts at capacity since the last full expiry sweep
+    private final AtomicInteger insertsSinceSweep = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LocalCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Return the cached value or load it. Only one caller per key runs the loader;
+     * the others wait for its result (or its exception).
+     */
+    public V get(K key, Function<K, V> loader) {
+        return get(key, loader, null);
+    }
+
+    /**
+     * Like {@link #get(Object, Function)}, but the loaded value's time-to-live is chosen per value,
+     * e.g. to keep negative results for less time than hits.
+     */
+    public V get(K key, Function<K, V> loader, Function<V, Duration> ttlForValue) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<V> ownLoad = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, ownLoad);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        long epoch = invalidationEpoch.get();
+        try {
+            V value = loader.apply(key);
+            if (value != null && epoch == invalidationEpoch.get()) {
+                put(key, value, ttlForValue != null ? ttlForValue.apply(value).toNanos() : ttlNanos);
+            }
+            ownLoad.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, ownLoad);
+        }
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && !entry.isExpired(System.nanoTime())) {
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null) {
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, ttl.toNanos());
+    }
+
+    private void put(K key, V value, long entryTtlNanos) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        long now = System.nanoTime();
+        entries.put(key, new Entry<>(value, now, now + entryTtlNanos));
+    }
+
+    public void invalidate(K key) {
+        invalidationEpoch.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every entry whose value matches. Linear in the cache size.
+     */
+    public void invalidateIf(Predicate<V> predicate) {
+        invalidationEpoch.incrementAndGet();
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public void invalidateAll() {
+        invalidationEpoch.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() { return entries.size(); }
+
+    public long hitCount() { return hits.sum(); }
+
+    public long missCount() { return misses.sum(); }
+
+    public long evictionCount() { return evictions.sum(); }
+
+    /**
+     * Publish size, hit, miss and eviction meters tagged with the cache name.
+     */
+    public LocalCache<K, V> bindTo(MeterRegistry registry, String name) {
+        Gauge.builder("app.cache.size", this, LocalCache::size)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("app.cache.gets", this, LocalCache::hitCount)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("app.cache.gets", this, LocalCache::missCount)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("app.cache.evictions", this, LocalCache::evictionCount)
+                .tag("cache", name).register(registry);
+        return this;
+    }
+
+    private void makeRoom() {
+        long now = System.nanoTime();
+        if (insertsSinceSweep.incrementAndGet() >= Math.max(1, maxSize / 4)) {
+            insertsSinceSweep.set(0);
+            if (entries.values().removeIf(entry -> entry.isExpired(now)) && entries.size() < maxSize) {
+                return;
+            }
+        }
+
+        // An expired entry in the sample is evicted ahead of any live one
+        K victim = null;
+        long victimRank = Long.MAX_VALUE;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+            Map.Entry<K, Entry<V>> candidate = iterator.next();
+            long rank = candidate.getValue().isExpired(now) ? Long.MIN_VALUE : candidate.getValue().writtenAt;
+            if (victim == null || rank < victimRank) {
+                victimRank = rank;
+                victim = candidate.getKey();
+            }
+        }
+        if (victim != null && entries.remove(victim) != null) {
+            evictions.increment();
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long writtenAt;
+        private final long expiresAt;
+
+        private Entry(V value, long writtenAt, long expiresAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
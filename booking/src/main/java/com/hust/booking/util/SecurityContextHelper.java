@@ -1,6 +1,6 @@
 package com.hust.booking.util;
 
-import com.hust.booking.entity.User;
+import com.hust.booking.security.AuthenticatedUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
@@ -10,21 +10,21 @@ public class SecurityContextHelper {
         return SecurityContextHolder.getContext().getAuthentication();
     }
 
-    public static User getCurrentUser() {
+    public static AuthenticatedUser getCurrentUser() {
         Authentication authentication = getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof User) {
-            return (User) authentication.getPrincipal();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            return (AuthenticatedUser) authentication.getPrincipal();
         }
         return null;
     }
 
     public static Long getCurrentUserId() {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         return user != null ? user.getId() : null;
     }
 
     public static String getCurrentUserEmail() {
-        User user = getCurrentUser();
+        AuthenticatedUser user = getCurrentUser();
         return user != null ? user.getEmail() : null;
     }
 
@@ -0,0 +1,300 @@
+package com.hust.booking.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index for ranked substring search over a few text fields per document.
+ *
+ * Text is folded to lower-case ASCII (diacritics stripped, so "Nguyễn" matches "nguyen")
+ * and split into tokens. Every token is indexed by its trigrams plus two start-padded ones,
+ * so one- and two-character queries are answered as token prefixes and longer ones as
+ * substrings. Posting lists hold dense slot numbers in increasing order; a query copies
+ * only its shortest list and narrows that copy in place against the others, so common
+ * trigrams cost a binary search per surviving candidate rather than a copy of their list.
+ * Removed documents are tombstoned and compacted away in bulk.
+ *
+ * Not thread-safe; callers guard it.
+ */
+public class TrigramIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final char PAD = '{';
+    private static final int RADIX = 37;
+
+    // Compact once this share of slots is dead
+    private static final double MAX_DEAD_RATIO = 0.25;
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+
+    private IntList[] postings = new IntList[RADIX * RADIX * RADIX];
+    private long[] ids = new long[1024];
+    private String[][][] tokens = new String[1024][][];
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private int slotCount;
+
+    /**
+     * Index (or re-index) a document. Fields are given in decreasing order of relevance.
+     */
+    public void put(long id, String... fields) {
+        remove(id);
+        maybeCompact();
+
+        String[][] fieldTokens = new String[fields.length][];
+        for (int f = 0; f < fields.length; f++) {
+            fieldTokens[f] = tokenize(normalize(fields[f]));
+        }
+        int slot = slotCount++;
+        ensureCapacity(slot + 1);
+        ids[slot] = id;
+        tokens[slot] = fieldTokens;
+        live.set(slot);
+        slotById.put(id, slot);
+        addPostings(slot, fieldTokens);
+    }
+
+    public void remove(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            live.clear(slot);
+            tokens[slot] = null;
+        }
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Ids of documents matching every query token, best first. A token matches a document
+     * when it is a prefix (one or two characters) or a substring (three or more) of one of
+     * its tokens. Matches in earlier fields rank higher, then whole tokens over prefixes
+     * over substrings.
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        String[] queryTokens = tokenize(normalize(query));
+        if (queryTokens.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        int[] candidates = candidatesFor(queryTokens);
+        if (candidates.length == 0) {
+            return List.of();
+        }
+
+        int wanted = offset + limit;
+        // Min-heap of the best `wanted` hits: {score, slot}
+        PriorityQueue<long[]> best = new PriorityQueue<>((a, b) -> a[0] != b[0]
+                ? Long.compare(a[0], b[0]) : Long.compare(ids[(int) b[1]], ids[(int) a[1]]));
+        for (int slot : candidates) {
+            if (!live.get(slot)) {
+                continue;
+            }
+            long score = score(tokens[slot], queryTokens);
+            if (score > 0) {
+                best.add(new long[]{score, slot});
+                if (best.size() > wanted) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(ids[(int) best.poll()[1]]);
+        }
+        Collections.reverse(ranked);
+        return offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+    }
+
+    /**
+     * Lower-case, strip diacritics (đ included) and turn everything except a-z/0-9 into spaces.
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder normalized = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = Character.toLowerCase(folded.charAt(i));
+            if (c == 'đ') {
+                c = 'd';
+            }
+            normalized.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : ' ');
+        }
+        return normalized.toString();
+    }
+
+    private static String[] tokenize(String normalized) {
+        String trimmed = normalized.trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" +");
+    }
+
+    // Field order decides first, then 3 for a whole-token match, 2 for a prefix, 1 for a substring
+    private static long score(String[][] fieldTokens, String[] queryTokens) {
+        long total = 0;
+        for (String query : queryTokens) {
+            long best = 0;
+            for (int f = 0; f < fieldTokens.length; f++) {
+                long fieldRank = (long) (fieldTokens.length - f) * 4;
+                for (String token : fieldTokens[f]) {
+                    int match = token.equals(query) ? 3
+                            : token.startsWith(query) ? 2
+                            : query.length() >= 3 && token.contains(query) ? 1 : 0;
+                    if (match > 0) {
+                        best = Math.max(best, fieldRank + match);
+                    }
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // Slots holding every query token: the padded prefix list for short tokens, every trigram
+    // list for the rest, all intersected starting from the shortest
+    private int[] candidatesFor(String[] queryTokens) {
+        List<IntList> lists = new ArrayList<>();
+        for (String token : queryTokens) {
+            if (token.length() < 3) {
+                lists.add(postings[code(token.length() == 1 ? "" + PAD + PAD + token : PAD + token, 0)]);
+            } else {
+                for (int i = 0; i + 3 <= token.length(); i++) {
+                    lists.add(postings[code(token, i)]);
+                }
+            }
+        }
+        for (IntList list : lists) {
+            if (list == null || list.size == 0) {
+                return new int[0];
+            }
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        IntList shortest = lists.get(0);
+        int[] result = Arrays.copyOf(shortest.values, shortest.size);
+        int count = result.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = retainAll(result, count, lists.get(i));
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    // Keeps, in place, the first `count` values that also occur in the list; both ascending
+    private static int retainAll(int[] values, int count, IntList list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < list.size; i++) {
+            int found = Arrays.binarySearch(list.values, from, list.size, values[i]);
+            if (found >= 0) {
+                values[kept++] = values[i];
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    private void addPostings(int slot, String[][] fieldTokens) {
+        int[] codes = new int[64];
+        int count = 0;
+        for (String[] field : fieldTokens) {
+            for (String token : field) {
+                String padded = "" + PAD + PAD + token;
+                for (int i = 0; i + 3 <= padded.length(); i++) {
+                    if (count == codes.length) {
+                        codes = Arrays.copyOf(codes, count * 2);
+                    }
+                    codes[count++] = code(padded, i);
+                }
+            }
+        }
+        Arrays.sort(codes, 0, count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && codes[i] == codes[i - 1]) {
+                continue;
+            }
+            IntList list = postings[codes[i]];
+            if (list == null) {
+                list = postings[codes[i]] = new IntList();
+            }
+            list.add(slot);
+        }
+    }
+
+    private void maybeCompact() {
+        int dead = slotCount - slotById.size();
+        if (dead < MIN_DEAD_FOR_COMPACTION || dead < slotCount * MAX_DEAD_RATIO) {
+            return;
+        }
+        long[] oldIds = ids;
+        String[][][] oldTokens = tokens;
+        int oldCount = slotCount;
+
+        postings = new IntList[RADIX * RADIX * RADIX];
+        ids = new long[Math.max(1024, slotById.size() * 2)];
+        tokens = new String[ids.length][][];
+        live.clear();
+        slotById.clear();
+        slotCount = 0;
+        for (int old = 0; old < oldCount; old++) {
+            if (oldTokens[old] != null) {
+                int slot = slotCount++;
+                ids[slot] = oldIds[old];
+                tokens[slot] = oldTokens[old];
+                live.set(slot);
+                slotById.put(oldIds[old], slot);
+                addPostings(slot, oldTokens[old]);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newLength = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newLength);
+            tokens = Arrays.copyOf(tokens, newLength);
+        }
+    }
+
+    private static int code(String text, int start) {
+        return (digit(text.charAt(start)) * RADIX + digit(text.charAt(start + 1))) * RADIX
+                + digit(text.charAt(start + 2));
+    }
+
+    private static int digit(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + (c - '0');
+        }
+        return 36; // PAD
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
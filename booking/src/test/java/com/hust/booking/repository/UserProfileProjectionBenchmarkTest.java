@@ -0,0 +1,82 @@
+package com.hust.booking.repository;
+
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Entity reads mapped to DTOs versus column-only constructor projections, per page of profiles;
+// run with -Dgroups=benchmark -DexcludedGroups=none
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class UserProfileProjectionBenchmarkTest {
+
+    private static final int USERS = 5_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARM_UP = 200;
+    private static final int MEASURED = 1_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void profilePages() {
+        for (int i = 0; i < USERS; i++) {
+            User user = new User(String.format("09%08d", i), "user" + i + "@example.com", "Nguyen Van " + i, "password-hash");
+            entityManager.persist(user);
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        PageRequest page = PageRequest.of(3, PAGE_SIZE, Sort.by("id"));
+        // Same window as the slice query (one extra row to detect a next page), without a count
+        measure("entities + mapping", () -> entityManager.createQuery("SELECT u FROM User u ORDER BY u.id", User.class)
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultStream()
+                .limit(PAGE_SIZE)
+                .map(UserProfileResponse::new)
+                .toList());
+        measure("constructor projection", () -> userRepository.findProfileSlice(page).getContent());
+    }
+
+    // Each iteration starts from an empty persistence context, as a request would
+    private void measure(String label, Supplier<List<UserProfileResponse>> read) {
+        for (int i = 0; i < WARM_UP; i++) {
+            read.get();
+            entityManager.clear();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            assertEquals(PAGE_SIZE, read.get().size());
+            entityManager.clear();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-24s %8.1f us/page %8d KB allocated/page%n", label,
+                elapsed / 1e3 / MEASURED, allocated / 1024 / MEASURED);
+    }
+}
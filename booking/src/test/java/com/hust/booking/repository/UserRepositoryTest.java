@@ -0,0 +1,140 @@
+package com.hust.booking.repository;
+
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Long> idsByCreatedAtDesc = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        String[] names = {"Mai", "An", "Binh", "An", "Cuong", "Mai", "Dung"};
+        for (int i = 0; i < names.length; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setPhone("090000000" + i);
+            user.setFullName(names[i]);
+            user.setPassword("secret");
+            entityManager.persist(user);
+            entityManager.flush();
+            // Two users share each timestamp so the id tie-breaker is exercised
+            entityManager.createQuery("UPDATE User u SET u.createdAt = :createdAt WHERE u.id = :id")
+                    .setParameter("createdAt", base.plusDays(i / 2))
+                    .setParameter("id", user.getId())
+                    .executeUpdate();
+            idsByCreatedAtDesc.add(0, user.getId());
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    void createdAtKeysetWalkVisitsEveryUserOnceNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        List<UserProfileResponse> page = userRepository.findProfilesByCreatedAt(Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(user -> seen.add(user.getId()));
+            UserProfileResponse last = page.get(page.size() - 1);
+            page = userRepository.findProfilesByCreatedAtAfter(last.getCreatedAt(), last.getId(), Limit.of(3));
+        }
+        // Equal timestamps fall back to id DESC, which matches insertion order reversed
+        assertEquals(idsByCreatedAtDesc, seen);
+    }
+
+    @Test
+    void fullNameKeysetWalkIsAlphabeticalWithIdTieBreak() {
+        List<String> names = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        List<UserProfileResponse> page = userRepository.findProfilesByFullName(Limit.of(2));
+        while (!page.isEmpty()) {
+            page.forEach(user -> {
+                names.add(user.getFullName());
+                ids.add(user.getId());
+            });
+            UserProfileResponse last = page.get(page.size() - 1);
+            page = userRepository.findProfilesByFullNameAfter(last.getFullName(), last.getId(), Limit.of(2));
+        }
+        assertEquals(List.of("An", "An", "Binh", "Cuong", "Dung", "Mai", "Mai"), names);
+        assertTrue(ids.get(0) < ids.get(1));
+        assertTrue(ids.get(5) < ids.get(6));
+    }
+
+    @Test
+    void updatedAtKeysetWalkReturnsOnlyChangesInChangeOrder() {
+        LocalDateTime since = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<Long> changed = List.of(idsByCreatedAtDesc.get(0), idsByCreatedAtDesc.get(3), idsByCreatedAtDesc.get(5));
+        for (int i = 0; i < changed.size(); i++) {
+            entityManager.createQuery("UPDATE User u SET u.updatedAt = :updatedAt WHERE u.id = :id")
+                    .setParameter("updatedAt", since.plusMinutes(changed.size() - i))
+                    .setParameter("id", changed.get(i))
+                    .executeUpdate();
+        }
+
+        List<Long> seen = new ArrayList<>();
+        List<UserProfileResponse> page = userRepository.findProfilesUpdatedAfter(since, 0L, Limit.of(2));
+        while (!page.isEmpty()) {
+            page.forEach(user -> seen.add(user.getId()));
+            UserProfileResponse last = page.get(page.size() - 1);
+            page = userRepository.findProfilesUpdatedAfter(last.getUpdatedAt(), last.getId(), Limit.of(2));
+        }
+        assertEquals(List.of(changed.get(2), changed.get(1), changed.get(0)), seen);
+    }
+
+    @Test
+    void sliceReportsNextPageWithoutCounting() {
+        Slice<UserProfileResponse> slice = userRepository.findProfileSlice(
+                PageRequest.of(1, 3, Sort.by(Sort.Direction.ASC, "fullName", "id")));
+        assertEquals(List.of("Cuong", "Dung", "Mai"), slice.getContent().stream().map(UserProfileResponse::getFullName).toList());
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    void countsRegistrationsPerDay() {
+        List<Object[]> rows = userRepository.countRegistrationsPerDaySince(LocalDateTime.of(2024, 1, 2, 0, 0));
+        Map<LocalDate, Long> perDay = new HashMap<>();
+        rows.forEach(row -> perDay.put((LocalDate) row[0], (Long) row[1]));
+        assertEquals(Map.of(LocalDate.of(2024, 1, 2), 2L, LocalDate.of(2024, 1, 3), 2L, LocalDate.of(2024, 1, 4), 1L), perDay);
+    }
+
+    @Test
+    void profileLookupsLeaveThePersistenceContextEmpty() {
+        UserProfileResponse profile = userRepository.findProfileByEmail("user2@example.com").orElseThrow();
+        assertEquals("Binh", profile.getFullName());
+        assertEquals(profile.getId(), userRepository.findProfileById(profile.getId()).orElseThrow().getId());
+        assertEquals(profile.getId(), userRepository.findProfileByPhone("0900000002").orElseThrow().getId());
+        assertEquals(List.of("Mai", "Mai"), userRepository.findProfilesByFullNameContaining("ma", PageRequest.of(0, 10))
+                .stream().map(UserProfileResponse::getFullName).toList());
+
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
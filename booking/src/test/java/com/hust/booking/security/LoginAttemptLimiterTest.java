@@ -0,0 +1,94 @@
+package com.hust.booking.security;
+
+import com.hust.booking.exception.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoginAttemptLimiter limiter = new LoginAttemptLimiter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "emailCapacity", 5);
+        ReflectionTestUtils.setField(limiter, "emailRefillPerMinute", 5.0);
+        ReflectionTestUtils.setField(limiter, "emailLockoutThreshold", 3);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", 1000);
+        ReflectionTestUtils.setField(limiter, "ipRefillPerMinute", 1000.0);
+        ReflectionTestUtils.setField(limiter, "ipLockoutThreshold", 10);
+        ReflectionTestUtils.setField(limiter, "ipFailureWindowMinutes", 10L);
+        ReflectionTestUtils.setField(limiter, "baseLockoutSeconds", 30L);
+        ReflectionTestUtils.setField(limiter, "maxLockoutSeconds", 900L);
+        ReflectionTestUtils.setField(limiter, "maxEntries", 100);
+        limiter.init();
+    }
+
+    @Test
+    void keySprayingNeverErasesALockout() {
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("victim@example.com", null, now);
+        }
+        assertThrows(TooManyLoginAttemptsException.class, () -> limiter.checkAllowed("victim@example.com", null, 0));
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.checkAllowed("spray" + i + "@example.com", null, now);
+        }
+
+        assertTrue(limiter.trackedKeys() <= 100);
+        assertThrows(TooManyLoginAttemptsException.class, () -> limiter.checkAllowed("victim@example.com", null, 1));
+    }
+
+    @Test
+    void untrackedKeysGetThroughWhenOnlyLockedBucketsRemain() {
+        // Locked-out IP first, then enough locked-out emails to fill every segment
+        for (int i = 0; i < 10; i++) {
+            limiter.recordFailure("user" + i + "@example.com", "10.0.0.1", 0);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                limiter.recordFailure("locked" + i + "@example.com", null, 0);
+            }
+        }
+
+        limiter.checkAllowed("newcomer@example.com", "10.0.0.2", 1);
+        assertTrue(meterRegistry.counter("app.login_throttle.untracked").count() > 0);
+        // The IP check still applies to an email that cannot be tracked
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> limiter.checkAllowed("another-newcomer@example.com", "10.0.0.1", 1));
+    }
+
+    @Test
+    void ipFailuresLeakAwayOverTheWindow() {
+        // Nine failures spread over time from a shared address, with successes in between
+        long now = 0;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 9; i++) {
+                limiter.recordFailure("user" + i + "@example.com", "10.0.0.1", now);
+                limiter.recordSuccess("user" + i + "@example.com");
+            }
+            now += 10 * MINUTE;
+            limiter.checkAllowed("someone@example.com", "10.0.0.1", now);
+        }
+    }
+
+    @Test
+    void ipFailuresInABurstStillLockOut() {
+        for (int i = 0; i < 10; i++) {
+            limiter.recordFailure("user" + i + "@example.com", "10.0.0.1", i);
+        }
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> limiter.checkAllowed("someone@example.com", "10.0.0.1", 20));
+    }
+}
@@ -0,0 +1,58 @@
+package com.hust.booking.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Codes per second with the production block size; run with -Dgroups=benchmark -DexcludedGroups=none
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-code-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "app.groups.code.key=benchmark-key",
+        "app.groups.code.block-size=1000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(GroupCodeAllocator.class)
+class GroupCodeAllocationBenchmarkTest {
+
+    private static final int WARM_UP = 20_000;
+    private static final int MEASURED = 200_000;
+
+    @Autowired
+    private GroupCodeAllocator allocator;
+
+    @Test
+    void allocateCodes() {
+        for (int i = 0; i < WARM_UP; i++) {
+            allocator.nextCode();
+        }
+
+        Set<String> codes = new HashSet<>(MEASURED * 2);
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            codes.add(allocator.nextCode());
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        assertEquals(MEASURED, codes.size());
+        System.out.printf("group codes: %d in %d ms (%.0f ns/code)%n",
+                MEASURED, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), (double) elapsedNanos / MEASURED);
+    }
+}
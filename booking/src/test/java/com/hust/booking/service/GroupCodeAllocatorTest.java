@@ -0,0 +1,87 @@
+package com.hust.booking.service;
+
+import com.hust.booking.dto.CreateGroupRequest;
+import com.hust.booking.entity.User;
+import com.hust.booking.repository.GroupMemberBatchRepository;
+import com.hust.booking.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Committed transactions against a pool far smaller than the number of concurrent callers
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-codes;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "app.groups.code.key=test-key",
+        "app.groups.code.block-size=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({GroupService.class, GroupMemberBatchRepository.class, GroupCodeAllocator.class, GroupMembershipCache.class, GroupPurger.class,
+        SimpleMeterRegistry.class})
+class GroupCodeAllocatorTest {
+
+    private static final int CALLERS = 8;
+    private static final int GROUPS_PER_CALLER = 10;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentCreatesCompleteWithMoreCallersThanConnections() throws Exception {
+        User owner = userRepository.save(new User("0900000001", "pool@example.com", "Pool Owner", "password-hash"));
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        try {
+            for (int c = 0; c < CALLERS; c++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    List<String> codes = new ArrayList<>();
+                    for (int i = 0; i < GROUPS_PER_CALLER; i++) {
+                        CreateGroupRequest request = new CreateGroupRequest();
+                        request.setName("Group " + i);
+                        codes.add(groupService.createGroup(request, owner.getId()).getCode());
+                    }
+                    return codes;
+                }));
+            }
+            start.countDown();
+
+            Set<String> codes = new HashSet<>();
+            for (Future<List<String>> result : results) {
+                codes.addAll(result.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(CALLERS * GROUPS_PER_CALLER, codes.size());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
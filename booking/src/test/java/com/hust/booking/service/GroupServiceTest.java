@@ -0,0 +1,393 @@
+package com.hust.booking.service;
+
+import com.hust.booking.dto.AddMemberRequest;
+import com.hust.booking.dto.BulkAddMembersRequest;
+import com.hust.booking.dto.BulkItemResult;
+import com.hust.booking.dto.BulkUpdateMemberStatusRequest;
+import com.hust.booking.dto.CreateGroupRequest;
+import com.hust.booking.dto.CursorPage;
+import com.hust.booking.dto.GroupMemberResponse;
+import com.hust.booking.dto.GroupResponse;
+import com.hust.booking.dto.JoinGroupRequest;
+import com.hust.booking.dto.UpdateMemberStatusRequest;
+import com.hust.booking.entity.Group;
+import com.hust.booking.entity.GroupMember;
+import com.hust.booking.entity.User;
+import com.hust.booking.enums.MemberRole;
+import com.hust.booking.enums.MemberStatus;
+import com.hust.booking.repository.GroupMemberBatchRepository;
+import com.hust.booking.exception.GroupNotFoundException;
+import com.hust.booking.exception.UserAlreadyInGroupException;
+import com.hust.booking.security.AuthenticatedUser;
+import com.hust.booking.util.GroupCodePermutation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// MySQL mode so the native insert statements run as they do in production
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:groups;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "app.groups.member-count-reconciler.pause-ms=0",
+        "app.groups.code.key=test-key",
+        "app.groups.code.block-size=4",
+        "app.groups.deletion.async-threshold=3",
+        "app.groups.deletion.chunk-size=2",
+        "app.groups.deletion.pause-ms=0"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({GroupService.class, GroupMemberBatchRepository.class, GroupCodeAllocator.class, GroupMembershipCache.class, GroupPurger.class,
+        GroupMemberCountReconciler.class, SimpleMeterRegistry.class})
+class GroupServiceTest {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private GroupMemberCountReconciler reconciler;
+
+    @Autowired
+    private GroupPurger groupPurger;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private int phoneSequence;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void myGroupsUsesOneStatementRegardlessOfGroupCount() {
+        User user = persistUser("few@example.com");
+        seedGroups(user, 2);
+        assertEquals(1, statementsFor(() -> groupService.getUserGroups(user.getId(), Pageable.unpaged())));
+
+        User busy = persistUser("many@example.com");
+        seedGroups(busy, 30);
+        assertEquals(1, statementsFor(() -> groupService.getUserGroups(busy.getId(), Pageable.unpaged())));
+    }
+
+    @Test
+    void memberCounterFollowsMembershipTransitions() {
+        User owner = persistUser("owner@example.com");
+        User joiner = persistUser("joiner@example.com");
+        GroupResponse created = groupService.createGroup(createRequest("Counted"), owner.getId());
+        assertEquals(1L, created.getMemberCount());
+
+        JoinGroupRequest join = new JoinGroupRequest();
+        join.setCode(created.getCode());
+        GroupMemberResponse pending = groupService.joinGroupByCode(join, joiner.getId());
+        assertEquals(1L, memberCount(created.getId()));
+        assertEquals(MemberStatus.PENDING, pending.getStatus());
+        assertThrows(UserAlreadyInGroupException.class, () -> groupService.joinGroupByCode(join, joiner.getId()));
+
+        groupService.updateMemberStatus(created.getId(), pending.getId(), statusRequest(MemberStatus.ACCEPTED), owner.getId());
+        assertEquals(2L, memberCount(created.getId()));
+
+        // Repeating the same transition must not count twice
+        groupService.updateMemberStatus(created.getId(), pending.getId(), statusRequest(MemberStatus.ACCEPTED), owner.getId());
+        assertEquals(2L, memberCount(created.getId()));
+
+        groupService.removeUserFromGroup(created.getId(), joiner.getId(), joiner.getId());
+        assertEquals(1L, memberCount(created.getId()));
+    }
+
+    @Test
+    void allocatedCodesSkipCodesAlreadyInUse() {
+        User owner = persistUser("codes@example.com");
+        // Pre-existing (legacy) group holding the first code the allocator would produce
+        persistGroup(new GroupCodePermutation("test-key").encode(0));
+        entityManager.flush();
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            codes.add(groupService.createGroup(createRequest("Group " + i), owner.getId()).getCode());
+        }
+        assertEquals(10, codes.size());
+        assertFalse(codes.contains(new GroupCodePermutation("test-key").encode(0)));
+    }
+
+    @Test
+    void previewsAndUnknownCodesAreServedFromCache() {
+        persistGroup("PRVIEW");
+        entityManager.flush();
+
+        assertEquals(1, statementsFor(() -> groupService.getGroupByCode("PRVIEW")));
+        assertEquals(0, statementsFor(() -> assertEquals("Group PRVIEW", groupService.getGroupByCode("prview").getName())));
+
+        assertEquals(1, statementsFor(() -> assertThrows(GroupNotFoundException.class,
+                () -> groupService.getGroupByCode("ZZZZZ9"))));
+        assertEquals(0, statementsFor(() -> assertThrows(GroupNotFoundException.class,
+                () -> groupService.getGroupByCode("ZZZZZ9"))));
+        // Malformed codes never reach the database
+        assertEquals(0, statementsFor(() -> assertThrows(GroupNotFoundException.class,
+                () -> groupService.getGroupByCode("' OR 1=1"))));
+    }
+
+    @Test
+    void smallGroupIsDeletedInlineInChunks() {
+        User owner = persistUser("small@example.com");
+        Group group = seedGroupWithMembers(owner, "SMALL1", 2);
+
+        groupService.deleteGroup(group.getId(), owner.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertNull(entityManager.find(Group.class, group.getId()));
+        assertEquals(0L, countMemberships(group.getId()));
+    }
+
+    @Test
+    void largeGroupIsHiddenThenPurgedInBackground() {
+        User owner = persistUser("large@example.com");
+        Group group = seedGroupWithMembers(owner, "LARGE1", 5);
+
+        groupService.deleteGroup(group.getId(), owner.getId());
+        entityManager.clear();
+
+        assertNotNull(entityManager.find(Group.class, group.getId()).getDeletedAt());
+        assertThrows(GroupNotFoundException.class, () -> groupService.getGroupByCode("LARGE1"));
+        assertTrue(groupService.getUserGroups(owner.getId(), Pageable.unpaged()).isEmpty());
+
+        // The owner's cached membership still passes the permission check; the write must not
+        User latecomer = persistUser("latecomer@example.com");
+        entityManager.flush();
+        assertThrows(GroupNotFoundException.class, () -> groupService.addMemberToGroup(group.getId(),
+                new AddMemberRequest(latecomer.getEmail()), owner.getId()));
+        assertThrows(GroupNotFoundException.class, () -> groupService.addMembersToGroup(group.getId(),
+                new BulkAddMembersRequest(List.of(latecomer.getEmail())), owner.getId()));
+
+        groupPurger.purgeDeletedGroups();
+        entityManager.clear();
+
+        assertNull(entityManager.find(Group.class, group.getId()));
+        assertEquals(0L, countMemberships(group.getId()));
+    }
+
+    @Test
+    void pendingMembershipsCountTowardsAsyncDeletion() {
+        User owner = persistUser("pending@example.com");
+        Group group = seedGroupWithMembers(owner, "PEND01", 0);
+        for (int i = 0; i < 3; i++) {
+            persistMember(persistUser(i + ".invited@example.com"), group, MemberStatus.PENDING, MemberRole.MEMBER);
+        }
+        entityManager.flush();
+
+        groupService.deleteGroup(group.getId(), owner.getId());
+        entityManager.clear();
+
+        // One accepted member, but four memberships to remove
+        assertNotNull(entityManager.find(Group.class, group.getId()).getDeletedAt());
+        assertEquals(4L, countMemberships(group.getId()));
+    }
+
+    @Test
+    void bulkInviteAndApproveReportPerItemOutcomes() {
+        User owner = persistUser("bulk@example.com");
+        Group group = seedGroupWithMembers(owner, "BULK01", 1);
+        persistUser("new1@example.com");
+        persistUser("new2@example.com");
+        entityManager.flush();
+
+        List<BulkItemResult> invited = groupService.addMembersToGroup(group.getId(), new BulkAddMembersRequest(List.of(
+                "new1@example.com", "0.bulk@example.com", "ghost@example.com", "new2@example.com", "new1@example.com")),
+                owner.getId());
+        assertEquals(List.of(BulkItemResult.Outcome.ADDED, BulkItemResult.Outcome.ALREADY_MEMBER,
+                        BulkItemResult.Outcome.USER_NOT_FOUND, BulkItemResult.Outcome.ADDED),
+                invited.stream().map(BulkItemResult::getOutcome).toList());
+        assertNotNull(invited.get(0).getMemberId());
+
+        List<Long> memberIds = List.of(invited.get(0).getMemberId(), invited.get(3).getMemberId(), -1L);
+        List<BulkItemResult> approved = groupService.updateMemberStatuses(group.getId(),
+                new BulkUpdateMemberStatusRequest(memberIds, MemberStatus.ACCEPTED), owner.getId());
+        assertEquals(List.of(BulkItemResult.Outcome.UPDATED, BulkItemResult.Outcome.UPDATED,
+                        BulkItemResult.Outcome.MEMBER_NOT_FOUND),
+                approved.stream().map(BulkItemResult::getOutcome).toList());
+        assertEquals(4L, memberCount(group.getId()));
+
+        List<BulkItemResult> repeated = groupService.updateMemberStatuses(group.getId(),
+                new BulkUpdateMemberStatusRequest(memberIds.subList(0, 1), MemberStatus.ACCEPTED), owner.getId());
+        assertEquals(BulkItemResult.Outcome.UNCHANGED, repeated.get(0).getOutcome());
+        assertEquals(4L, memberCount(group.getId()));
+    }
+
+    @Test
+    void reconcilerRepairsDriftedCounter() {
+        User owner = persistUser("drift@example.com");
+        Group group = persistGroup("DRIFT1");
+        persistMember(owner, group, MemberStatus.ACCEPTED, MemberRole.OWNER);
+        group.setAcceptedMemberCount(7);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, reconciler.reconcile());
+        assertEquals(1L, memberCount(group.getId()));
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    void pagesThroughGroups() {
+        User user = persistUser("paged@example.com");
+        seedGroups(user, 5);
+
+        List<GroupResponse> page = groupService.getUserGroups(user.getId(), PageRequest.of(1, 2));
+        assertEquals(2, page.size());
+        assertEquals(2L, page.get(0).getMemberCount());
+    }
+
+    @Test
+    void membersPageByKeysetWithoutPerRowQueries() {
+        User owner = persistUser("keyset@example.com");
+        Group group = persistGroup("KEYSET");
+        persistMember(owner, group, MemberStatus.ACCEPTED, MemberRole.OWNER);
+        for (int i = 0; i < 6; i++) {
+            persistMember(persistUser(i + ".keyset@example.com"), group,
+                    i % 2 == 0 ? MemberStatus.ACCEPTED : MemberStatus.PENDING, MemberRole.MEMBER);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        String after = null;
+        do {
+            String cursor = after;
+            AtomicReference<CursorPage<GroupMemberResponse>> page = new AtomicReference<>();
+            // one projection query however many members are on the page, plus the
+            // membership map load on the first page only
+            assertEquals(cursor == null ? 2 : 1, statementsFor(() -> page.set(groupService.getGroupMembers(
+                    group.getId(), owner.getId(), null, cursor, 3))));
+            page.get().getItems().forEach(member -> {
+                assertNotNull(member.getUserEmail());
+                assertEquals("Group KEYSET", member.getGroupName());
+                seen.add(member.getId());
+            });
+            after = page.get().getNextCursor();
+        } while (after != null);
+
+        assertEquals(7, seen.size());
+        assertEquals(seen.stream().sorted().toList(), seen);
+
+        CursorPage<GroupMemberResponse> pending = groupService.getGroupMembers(
+                group.getId(), owner.getId(), MemberStatus.PENDING, null, 10);
+        assertEquals(3, pending.getItems().size());
+        assertNull(pending.getNextCursor());
+    }
+
+    @Test
+    void membershipsLoadInOneStatement() {
+        User user = persistUser("member@example.com");
+        seedGroups(user, 12);
+        AuthenticatedUser principal = new AuthenticatedUser(user.getId(), user.getEmail(), user.getFullName(),
+                0, true, null, null);
+
+        AtomicReference<List<GroupMemberResponse>> memberships = new AtomicReference<>();
+        assertEquals(1, statementsFor(() -> memberships.set(groupService.getUserMemberships(
+                principal, MemberStatus.ACCEPTED, MemberRole.MEMBER, Pageable.unpaged()))));
+        assertEquals(12, memberships.get().size());
+        assertEquals("member@example.com", memberships.get().get(0).getUserEmail());
+        assertNotNull(memberships.get().get(0).getGroupName());
+
+        assertTrue(groupService.getUserMemberships(principal, null, MemberRole.OWNER, Pageable.unpaged()).isEmpty());
+    }
+
+    // Each group gets the user plus one other accepted member
+    private void seedGroups(User user, int count) {
+        for (int i = 0; i < count; i++) {
+            Group group = persistGroup(String.format("%s%02d", user.getEmail().substring(0, 4).toUpperCase(), i));
+            User other = persistUser(i + "." + user.getEmail());
+            persistMember(user, group, MemberStatus.ACCEPTED, MemberRole.MEMBER);
+            persistMember(other, group, MemberStatus.ACCEPTED, MemberRole.OWNER);
+            group.setAcceptedMemberCount(2);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Owner plus extraMembers accepted members, with the counter kept in step
+    private Group seedGroupWithMembers(User owner, String code, int extraMembers) {
+        Group group = persistGroup(code);
+        persistMember(owner, group, MemberStatus.ACCEPTED, MemberRole.OWNER);
+        for (int i = 0; i < extraMembers; i++) {
+            persistMember(persistUser(i + "." + owner.getEmail()), group, MemberStatus.ACCEPTED, MemberRole.MEMBER);
+        }
+        group.setAcceptedMemberCount(extraMembers + 1);
+        entityManager.flush();
+        return group;
+    }
+
+    private long countMemberships(Long groupId) {
+        return entityManager.createQuery("SELECT COUNT(gm) FROM GroupMember gm WHERE gm.groupId = :groupId", Long.class)
+                .setParameter("groupId", groupId)
+                .getSingleResult();
+    }
+
+    private long memberCount(Long groupId) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.find(Group.class, groupId).getAcceptedMemberCount();
+    }
+
+    private CreateGroupRequest createRequest(String name) {
+        CreateGroupRequest request = new CreateGroupRequest();
+        request.setName(name);
+        return request;
+    }
+
+    private UpdateMemberStatusRequest statusRequest(MemberStatus status) {
+        UpdateMemberStatusRequest request = new UpdateMemberStatusRequest();
+        request.setStatus(status);
+        return request;
+    }
+
+    private long statementsFor(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUser(String email) {
+        User user = new User(String.format("09%08d", ++phoneSequence), email, "Test User", "password-hash");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Group persistGroup(String code) {
+        Group group = new Group(code, "Group " + code);
+        entityManager.persist(group);
+        return group;
+    }
+
+    private void persistMember(User user, Group group, MemberStatus status, MemberRole role) {
+        entityManager.persist(new GroupMember(user.getId(), group.getId(), status, role));
+    }
+}
@@ -0,0 +1,104 @@
+package com.hust.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hust.booking.dto.JoinGroupRequest;
+import com.hust.booking.exception.IdempotencyKeyReusedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotentRequestsTest {
+
+    private final IdempotentRequests requests = new IdempotentRequests();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(requests, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(requests, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(requests, "maxEntries", 100);
+        ReflectionTestUtils.setField(requests, "ttlSeconds", 600L);
+        requests.initCache();
+    }
+
+    @Test
+    void retryWithSameKeyAndPayloadReplaysTheResult() {
+        AtomicInteger runs = new AtomicInteger();
+        String first = requests.execute("join", 1L, "key-1", join("ABC123"), () -> "result-" + runs.incrementAndGet());
+        String second = requests.execute("join", 1L, "key-1", join("ABC123"), () -> "result-" + runs.incrementAndGet());
+
+        assertEquals("result-1", first);
+        assertEquals("result-1", second);
+        assertEquals(1, runs.get());
+
+        // Other users and operations do not share the key
+        assertEquals("result-2", requests.execute("join", 2L, "key-1", join("ABC123"), () -> "result-" + runs.incrementAndGet()));
+        assertEquals("result-3", requests.execute("add-member:7", 1L, "key-1", join("ABC123"),
+                () -> "result-" + runs.incrementAndGet()));
+    }
+
+    @Test
+    void reusingAKeyForAnotherPayloadIsRejected() {
+        requests.execute("join", 1L, "key-1", join("ABC123"), () -> "joined ABC123");
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> requests.execute("join", 1L, "key-1", join("XYZ789"), () -> "joined XYZ789"));
+    }
+
+    @Test
+    void concurrentRequestsWithOneKeyRunTheActionOnce() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> requests.execute("join", 1L, "key-1", join("ABC123"), () -> {
+                started.countDown();
+                await(release);
+                return "result-" + runs.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> requests.execute("join", 1L, "key-1", join("ABC123"),
+                    () -> "result-" + runs.incrementAndGet()));
+            release.countDown();
+
+            assertEquals("result-1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("result-1", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresAreNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> requests.execute("join", 1L, "key-1", join("ABC123"), () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+
+        assertEquals("joined", requests.execute("join", 1L, "key-1", join("ABC123"), () -> "joined"));
+    }
+
+    private static JoinGroupRequest join(String code) {
+        JoinGroupRequest request = new JoinGroupRequest();
+        request.setCode(code);
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.hust.booking.service;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.exception.ServiceBusyException;
+import com.hust.booking.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserExportServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 1, 8, 30);
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2024, 3, 2, 9, 45, 10);
+
+    private final UserExportService exportService = new UserExportService();
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepository.streamAllProfiles()).thenAnswer(invocation -> Stream.of(
+                new UserProfileResponse(1L, "an@example.com", "0900000001", "Nguyễn Văn An", CREATED, UPDATED, true),
+                new UserProfileResponse(2L, "b@example.com", null, "Trần, \"Bé\"\nHai", CREATED, UPDATED, false)));
+
+        ReflectionTestUtils.setField(exportService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(exportService, "objectMapper", Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+        ReflectionTestUtils.setField(exportService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(exportService, "flushEvery", 1);
+        ReflectionTestUtils.setField(exportService, "maxConcurrent", 1);
+        exportService.init();
+    }
+
+    @Test
+    void csvQuotesOnlyFieldsThatNeedIt() {
+        assertEquals("id,email,phone,fullName,createdAt,updatedAt,enabled\r\n"
+                        + "1,an@example.com,0900000001,Nguyễn Văn An,2024-03-01T08:30,2024-03-02T09:45:10,true\r\n"
+                        + "2,b@example.com,,\"Trần, \"\"Bé\"\"\nHai\",2024-03-01T08:30,2024-03-02T09:45:10,false\r\n",
+                export(UserExportService.Format.CSV));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() {
+        String[] lines = export(UserExportService.Format.NDJSON).split("\n", -1);
+
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"email\":\"an@example.com\""), lines[0]);
+        assertTrue(lines[0].contains("\"createdAt\":\"2024-03-01T08:30:00\""), lines[0]);
+        assertTrue(lines[1].contains("\"fullName\":\"Trần, \\\"Bé\\\"\\nHai\""), lines[1]);
+    }
+
+    @Test
+    void exportsBeyondTheLimitAreRefusedUntilASlotFrees() throws Exception {
+        StreamingResponseBody running = exportService.startExport(UserExportService.Format.NDJSON);
+        assertThrows(ServiceBusyException.class, () -> exportService.startExport(UserExportService.Format.CSV));
+
+        running.writeTo(new ByteArrayOutputStream());
+        assertNotNull(exportService.startExport(UserExportService.Format.CSV));
+    }
+
+    private String export(UserExportService.Format format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
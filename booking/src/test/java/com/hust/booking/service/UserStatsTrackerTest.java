@@ -0,0 +1,119 @@
+package com.hust.booking.service;
+
+import com.hust.booking.dto.UserProfileResponse;
+import com.hust.booking.dto.UserStatsResponse;
+import com.hust.booking.event.UserChangedEvent;
+import com.hust.booking.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserStatsTrackerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final UserStatsTracker tracker = new UserStatsTracker();
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tracker, "userRepository", userRepository);
+        ReflectionTestUtils.setField(tracker, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tracker, "windowDays", 3);
+        ReflectionTestUtils.setField(tracker, "recentSampleSize", 2);
+        tracker.initMetrics();
+    }
+
+    @Test
+    void eventsMoveTheCountersAndTheSample() {
+        seedDatabase(10, List.<Object[]>of(perDay(TODAY, 1)), List.of(user(10, TODAY)));
+        tracker.reconcile();
+
+        tracker.onUserChanged(UserChangedEvent.registered(user(11, TODAY)));
+        UserStatsResponse stats = tracker.getStats();
+        assertEquals(11, stats.getTotalUsers());
+        assertEquals(2, stats.getRecentRegistrations());
+        assertEquals(List.of(11L, 10L), ids(stats));
+
+        tracker.onUserChanged(UserChangedEvent.deleted(user(10, TODAY)));
+        stats = tracker.getStats();
+        assertEquals(10, stats.getTotalUsers());
+        assertEquals(1L, stats.getRegistrationsPerDay().get(TODAY));
+        assertEquals(List.of(11L), ids(stats));
+    }
+
+    @Test
+    void daysOutsideTheWindowRollOff() {
+        LocalDate old = TODAY.minusDays(5);
+        seedDatabase(3, List.of(perDay(old, 2), perDay(TODAY, 1)), List.of(user(3, TODAY), user(2, old)));
+        tracker.reconcile();
+
+        UserStatsResponse stats = tracker.getStats();
+        assertEquals(List.of(TODAY.minusDays(2), TODAY.minusDays(1), TODAY),
+                new ArrayList<>(stats.getRegistrationsPerDay().keySet()));
+        assertEquals(1, stats.getRecentRegistrations());
+        // The sample only lists users registered inside the window
+        assertEquals(List.of(3L), ids(stats));
+    }
+
+    @Test
+    void sampleKeepsOnlyTheNewestUsers() {
+        seedDatabase(0, List.of(), List.of());
+        tracker.reconcile();
+
+        for (long id = 1; id <= 3; id++) {
+            tracker.onUserChanged(UserChangedEvent.registered(user(id, TODAY)));
+        }
+        UserStatsResponse stats = tracker.getStats();
+        assertEquals(3, stats.getTotalUsers());
+        assertEquals(List.of(3L, 2L), ids(stats));
+    }
+
+    @Test
+    void eventsArrivingDuringAReconcileAreReplayed() {
+        seedDatabase(5, List.<Object[]>of(perDay(TODAY, 5)), List.of());
+        tracker.reconcile();
+
+        // A registration commits after the count was read but before the pass swaps its figures in
+        when(userRepository.countTotalUsers()).thenAnswer(invocation -> {
+            tracker.onUserChanged(UserChangedEvent.registered(user(6, TODAY)));
+            return 5L;
+        });
+        tracker.reconcile();
+
+        UserStatsResponse stats = tracker.getStats();
+        assertEquals(6, stats.getTotalUsers());
+        assertEquals(6L, stats.getRegistrationsPerDay().get(TODAY));
+        assertEquals(List.of(6L), ids(stats));
+    }
+
+    private void seedDatabase(long total, List<Object[]> perDay, List<UserProfileResponse> newest) {
+        when(userRepository.countTotalUsers()).thenReturn(total);
+        when(userRepository.countRegistrationsPerDaySince(any())).thenReturn(perDay);
+        when(userRepository.findProfilesByCreatedAt(any())).thenReturn(newest);
+    }
+
+    private static Object[] perDay(LocalDate day, long count) {
+        return new Object[]{day, count};
+    }
+
+    private static UserProfileResponse user(long id, LocalDate registeredOn) {
+        LocalDateTime createdAt = registeredOn.atTime(12, 0);
+        return new UserProfileResponse(id, id + "@example.com", null, "User " + id, createdAt, createdAt, true);
+    }
+
+    private static List<Long> ids(UserStatsResponse stats) {
+        return stats.getRecentUsers().stream().map(UserProfileResponse::getId).toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.hust.booking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCodePermutationTest {
+
+    private final GroupCodePermutation permutation = new GroupCodePermutation("test-key");
+
+    @Test
+    void sequentialNumbersGiveDistinctValidCodes() {
+        Set<String> codes = new HashSet<>();
+        for (long sequence = 0; sequence < 1_000_000; sequence++) {
+            String code = permutation.encode(sequence);
+            assertEquals(GroupCodePermutation.CODE_LENGTH, code.length());
+            assertTrue(code.chars().allMatch(c -> GroupCodePermutation.ALPHABET.indexOf(c) >= 0), code);
+            assertTrue(codes.add(code), "duplicate code " + code + " at " + sequence);
+        }
+    }
+
+    @Test
+    void isBijectiveNearTheTopOfTheSpace() {
+        // Cycle-walking must stay inside the space for the last numbers too
+        Set<Long> values = new HashSet<>();
+        for (long sequence = GroupCodePermutation.SPACE - 100_000; sequence < GroupCodePermutation.SPACE; sequence++) {
+            long value = permutation.permute(sequence);
+            assertTrue(value >= 0 && value < GroupCodePermutation.SPACE);
+            assertTrue(values.add(value));
+        }
+    }
+
+    @Test
+    void keyChangesTheMapping() {
+        GroupCodePermutation other = new GroupCodePermutation("other-key");
+        int same = 0;
+        for (long sequence = 0; sequence < 1000; sequence++) {
+            if (permutation.encode(sequence).equals(other.encode(sequence))) {
+                same++;
+            }
+        }
+        assertTrue(same < 5);
+    }
+
+    @Test
+    void rejectsNumbersOutsideTheSpace() {
+        assertThrows(IllegalArgumentException.class, () -> permutation.encode(-1));
+        assertThrows(IllegalArgumentException.class, () -> permutation.encode(GroupCodePermutation.SPACE));
+    }
+}
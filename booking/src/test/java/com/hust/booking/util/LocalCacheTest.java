@@ -0,0 +1,101 @@
+package com.hust.booking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCacheTest {
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        LocalCache<String, String> cache = new LocalCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            Future<?>[] results = new Future<?>[8];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = pool.submit(() -> cache.get("key", key -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "value";
+                }));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotOverwritten() {
+        LocalCache<String, String> cache = new LocalCache<>(10, Duration.ofMinutes(1));
+
+        cache.get("key", key -> {
+            cache.invalidate(key);
+            return "stale";
+        });
+
+        assertNull(cache.getIfPresent("key"));
+    }
+
+    @Test
+    void sizeStaysBounded() {
+        LocalCache<Integer, Integer> cache = new LocalCache<>(100, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertEquals(900, cache.evictionCount());
+    }
+
+    @Test
+    void expiredEntriesAreMisses() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>(10, Duration.ofMillis(10));
+        cache.put("key", "value");
+
+        Thread.sleep(30);
+
+        assertNull(cache.getIfPresent("key"));
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void expiredEntriesMakeRoomBeforeLiveOnes() throws InterruptedException {
+        LocalCache<Integer, Integer> cache = new LocalCache<>(100, Duration.ofMillis(10));
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        Thread.sleep(30);
+
+        for (int i = 100; i < 200; i++) {
+            cache.put(i, i, Duration.ofMinutes(1));
+        }
+
+        for (int i = 100; i < 200; i++) {
+            assertEquals(i, cache.getIfPresent(i));
+        }
+        assertTrue(cache.size() <= 100);
+    }
+}
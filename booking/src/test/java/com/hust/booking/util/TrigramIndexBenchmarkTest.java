@@ -0,0 +1,65 @@
+package com.hust.booking.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Build cost, heap and query latency at the target scale; run with -Dgroups=benchmark -DexcludedGroups=none
+// (-Dbenchmark.users=N to change the size)
+@Tag("benchmark")
+class TrigramIndexBenchmarkTest {
+
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng",
+            "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+    private static final String[] MIDDLE = {"Văn", "Thị", "Hữu", "Đức", "Minh", "Ngọc", "Thanh", "Quốc", "Gia", "Xuân"};
+    private static final String[] GIVEN = {"Anh", "Bình", "Chi", "Dũng", "Giang", "Hà", "Hải", "Hạnh", "Hiếu", "Hoa",
+            "Hùng", "Huy", "Khánh", "Lan", "Linh", "Long", "Mai", "Minh", "Nam", "Nga", "Phong", "Phúc", "Quân",
+            "Quyết", "Sơn", "Tâm", "Thảo", "Trang", "Trung", "Tú", "Tuấn", "Vy", "Yến"};
+    private static final String[] QUERIES = {"nguyen", "ng", "nguyen van anh", "tran thi lan", "quyet", "0912", "34567"};
+    private static final int RUNS_PER_QUERY = 200;
+
+    @Test
+    void searchAtScale() {
+        int users = Integer.getInteger("benchmark.users", 1_000_000);
+        Random random = new Random(42);
+
+        long heapBefore = usedHeap();
+        long started = System.nanoTime();
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 1; id <= users; id++) {
+            String name = FAMILY[random.nextInt(FAMILY.length)] + " " + MIDDLE[random.nextInt(MIDDLE.length)]
+                    + " " + GIVEN[random.nextInt(GIVEN.length)];
+            index.put(id, name, "user" + id, String.format("09%08d", random.nextInt(100_000_000)));
+        }
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        long heapMegabytes = (usedHeap() - heapBefore) >> 20;
+        System.out.printf("trigram index: %d users built in %d ms, ~%d MB heap%n", users, buildMillis, heapMegabytes);
+
+        for (String query : QUERIES) {
+            for (int i = 0; i < RUNS_PER_QUERY / 4; i++) {
+                index.search(query, 0, 20);
+            }
+            long[] nanos = new long[RUNS_PER_QUERY];
+            int hits = 0;
+            for (int i = 0; i < RUNS_PER_QUERY; i++) {
+                long start = System.nanoTime();
+                hits = index.search(query, 0, 20).size();
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("  %-16s hits=%2d p50=%7.2f ms p99=%7.2f ms%n", '"' + query + '"', hits,
+                    nanos[RUNS_PER_QUERY / 2] / 1e6, nanos[RUNS_PER_QUERY * 99 / 100] / 1e6);
+        }
+        assertEquals(users, index.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
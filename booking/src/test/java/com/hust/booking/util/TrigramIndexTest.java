@@ -0,0 +1,89 @@
+package com.hust.booking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void matchesIgnoringDiacritics() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Nguyễn Văn Đức", "duc@example.com", "0912345678");
+        index.put(2, "Trần Thị Hoa", "hoa@example.com", "0987654321");
+
+        assertEquals(List.of(1L), index.search("nguyen duc", 0, 10));
+        assertEquals(List.of(1L), index.search("ĐỨC", 0, 10));
+        assertEquals(List.of(2L), index.search("tran", 0, 10));
+    }
+
+    @Test
+    void shortQueriesMatchWordPrefixesAndLongOnesSubstrings() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Lê Minh", "minh@example.com", "0911111111");
+        index.put(2, "Hoàng Lâm", "lam@example.com", "0922222222");
+
+        assertEquals(List.of(1L), index.search("mi", 0, 10));
+        assertEquals(List.of(), index.search("in", 0, 10));
+        assertEquals(List.of(2L), index.search("oan", 0, 10));
+        assertEquals(List.of(2L), index.search("22222", 0, 10));
+    }
+
+    @Test
+    void ranksNameMatchesAndWholeWordsFirst() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Phạm Anh", "x@example.com", "0900000001");
+        index.put(2, "Vũ Bình", "anh@example.com", "0900000002");
+        index.put(3, "Anhthu Lý", "y@example.com", "0900000003");
+
+        assertEquals(List.of(1L, 3L, 2L), index.search("anh", 0, 10));
+        assertEquals(List.of(3L, 2L), index.search("anh", 1, 10));
+        assertEquals(List.of(1L), index.search("anh", 0, 1));
+    }
+
+    @Test
+    void rareTokenNarrowsCommonOnes() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 0; id < 2000; id++) {
+            index.put(id, "Nguyễn Văn " + id, "user" + id, "09" + id);
+        }
+        index.put(5000, "Nguyễn Văn Quyết", "quyet", "0800000000");
+
+        assertEquals(List.of(5000L), index.search("nguyen van quyet", 0, 10));
+        assertEquals(List.of(1234L), index.search("van nguyen 1234", 0, 10));
+        assertEquals(List.of(), index.search("nguyen quyet 1234", 0, 10));
+    }
+
+    @Test
+    void reflectsUpdatesAndRemovals() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Đỗ Hùng", "hung@example.com", "0900000001");
+        index.put(1, "Đỗ Dũng", "dung@example.com", "0900000001");
+        assertEquals(List.of(), index.search("hung", 0, 10));
+        assertEquals(List.of(1L), index.search("dung", 0, 10));
+
+        index.remove(1);
+        assertEquals(List.of(), index.search("dung", 0, 10));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void staysCorrectAcrossCompaction() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 0; id < 5000; id++) {
+            index.put(id, "User " + id, "user" + id + "@example.com", "09" + id);
+        }
+        for (long id = 0; id < 5000; id++) {
+            if (id != 4242) {
+                index.remove(id);
+            }
+        }
+        index.put(9999, "Someone Else", "else@example.com", "0800000000");
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(4242L), index.search("4242", 0, 10));
+        assertEquals(List.of(9999L), index.search("someone", 0, 10));
+    }
+}